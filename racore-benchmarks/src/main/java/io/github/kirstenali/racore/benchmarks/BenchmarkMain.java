@@ -0,0 +1,59 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of {@code racore-benchmarks/target/benchmarks.jar}. Accepts the usual JMH options,
+ * e.g. a benchmark regex or {@code -p routes=1000}:
+ * <pre>{@code
+ * mvn -pl racore-benchmarks -am package
+ * java -jar racore-benchmarks/target/benchmarks.jar Routing
+ * }</pre>
+ * <p>
+ * Unlike plain JMH, the GC profiler is always on, so every result comes with its allocation rate
+ * per operation ({@code gc.alloc.rate.norm}), and results are also written to
+ * {@code jmh-result.json} unless {@code -rf}/{@code -rff} say otherwise. Comparing that file
+ * between commits shows both time and allocation regressions.
+ * </p>
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        CommandLineOptions cmd;
+        try {
+            cmd = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().stream().noneMatch(p -> p.getKlass().equals(GCProfiler.class.getName())
+                || p.getKlass().equals("gc"))) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!cmd.getResultFormat().hasValue() && !cmd.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import io.github.kirstenali.racore.core.Endpoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole requests through {@link Endpoint#dispatch}: interceptors, routing, request binding,
+ * the handler and the JSON response, with no network in between.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+    private static boolean routesRegistered;
+
+    private FakeHttpExchange getWithPathVariable;
+    private FakeHttpExchange getWithQuery;
+    private FakeHttpExchange postJson;
+    private FakeHttpExchange notFound;
+
+    @Setup
+    public void setUp() {
+        registerRoutes();
+
+        getWithPathVariable = FakeHttpExchange.get("/people/42");
+        getWithQuery = FakeHttpExchange.get("/search?q=ada&page=2");
+        notFound = FakeHttpExchange.get("/nowhere");
+
+        byte[] body = Payloads.json(Payloads.order(10));
+        Headers headers = new Headers();
+        headers.add("Content-Type", "application/json");
+        headers.add("Content-Length", Integer.toString(body.length));
+        postJson = new FakeHttpExchange("POST", "/orders", headers, body);
+    }
+
+    private static synchronized void registerRoutes() {
+        if (routesRegistered) return;
+        routesRegistered = true;
+
+        Endpoint.get("/people/{id}", req -> Map.of("id", req.getPathVariable("param0"), "name", "Ada"));
+        Endpoint.get("/search", req -> Map.of("q", req.getParam("q"), "page", req.getParam("page")));
+        Endpoint.post("/orders", req -> req.getBodyAs(Payloads.Order.class).items().size());
+    }
+
+    @Benchmark
+    public long getWithPathVariable() throws IOException {
+        return dispatch(getWithPathVariable);
+    }
+
+    @Benchmark
+    public long getWithQuery() throws IOException {
+        return dispatch(getWithQuery);
+    }
+
+    @Benchmark
+    public long postJson() throws IOException {
+        return dispatch(postJson);
+    }
+
+    @Benchmark
+    public long notFound() throws IOException {
+        return dispatch(notFound);
+    }
+
+    private static long dispatch(FakeHttpExchange exchange) throws IOException {
+        Endpoint.dispatch(exchange.reset());
+        return exchange.responseBytes();
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link HttpExchange} so benchmarks measure the framework rather than sockets.
+ * The response body is discarded; only its size is kept so results can be checked and consumed.
+ */
+final class FakeHttpExchange extends HttpExchange {
+    private final String method;
+    private final URI uri;
+    private final Headers requestHeaders;
+    private final byte[] requestBody;
+
+    private Headers responseHeaders = new Headers();
+    private Map<String, Object> attributes = new HashMap<>();
+    private InputStream in;
+    private final CountingOutputStream counter = new CountingOutputStream();
+    private OutputStream out = counter;
+    private int responseCode = -1;
+
+    FakeHttpExchange(String method, String uri, Headers requestHeaders, byte[] requestBody) {
+        this.method = method;
+        this.uri = URI.create(uri);
+        this.requestHeaders = requestHeaders;
+        this.requestBody = requestBody;
+        this.in = new ByteArrayInputStream(requestBody);
+    }
+
+    static FakeHttpExchange get(String uri) {
+        return new FakeHttpExchange("GET", uri, new Headers(), new byte[0]);
+    }
+
+    /** Makes the exchange ready to be dispatched again, keeping the request. */
+    FakeHttpExchange reset() {
+        responseHeaders = new Headers();
+        attributes = new HashMap<>();
+        in = new ByteArrayInputStream(requestBody);
+        out = counter;
+        counter.count = 0;
+        responseCode = -1;
+        return this;
+    }
+
+    long responseBytes() {
+        return counter.count;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return in;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return out;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) {
+        responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) in = i;
+        if (o != null) out = o;
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
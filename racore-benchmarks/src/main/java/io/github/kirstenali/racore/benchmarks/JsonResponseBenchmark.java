@@ -0,0 +1,46 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import io.github.kirstenali.racore.core.responses.ResponseWriters;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ResponseWriters.sendJsonResponse} for orders of 1, 100 and 10,000 items. Bodies larger
+ * than {@code json.buffer-size} are streamed, and with {@code gzip} accepted, bodies above
+ * {@code compression.threshold} are compressed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonResponseBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int items;
+
+    @Param({"identity", "gzip"})
+    String acceptEncoding;
+
+    private Payloads.Order order;
+    private FakeHttpExchange exchange;
+
+    @Setup
+    public void setUp() {
+        order = Payloads.order(items);
+
+        Headers headers = new Headers();
+        headers.add("Accept-Encoding", acceptEncoding);
+        exchange = new FakeHttpExchange("GET", "/orders/1", headers, new byte[0]);
+    }
+
+    @Benchmark
+    public long sendJsonResponse() throws IOException {
+        ResponseWriters.sendJsonResponse(exchange.reset(), 200, order);
+        return exchange.responseBytes();
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import io.github.kirstenali.racore.core.utils.RaJson;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request and response bodies of a given size, shared by the benchmarks.
+ */
+final class Payloads {
+    private Payloads() {}
+
+    public record Item(long id, String name, double price, List<String> tags) {
+    }
+
+    public record Order(String customer, List<Item> items) {
+    }
+
+    /** An order with {@code count} items; each item is about 70 bytes of JSON. */
+    static Order order(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(i, "item-" + i, i * 1.25, List.of("a", "b")));
+        }
+        return new Order("customer-" + count, items);
+    }
+
+    static byte[] json(Object value) {
+        try {
+            return RaJson.mapper().writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import io.github.kirstenali.racore.core.requests.Request;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON request binding with {@code Request.getBodyAs} for orders of 1, 100 and 10,000 items
+ * (roughly 100 bytes, 7 KB and 700 KB).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestBodyBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int items;
+
+    private FakeHttpExchange exchange;
+
+    @Setup
+    public void setUp() {
+        byte[] body = Payloads.json(Payloads.order(items));
+
+        Headers headers = new Headers();
+        headers.add("Content-Type", "application/json");
+        headers.add("Content-Length", Integer.toString(body.length));
+        exchange = new FakeHttpExchange("POST", "/orders", headers, body);
+    }
+
+    @Benchmark
+    public Payloads.Order getBodyAs() {
+        return new Request(exchange.reset(), new String[0]).getBodyAs(Payloads.Order.class);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import io.github.kirstenali.racore.core.utils.CookieUtil;
+import io.github.kirstenali.racore.core.utils.QueryParameterUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query string and cookie parsing, which most requests go through at least once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestParsingBenchmark {
+    private static final String QUERY = "page=3&size=50&sort=name%2Casc&q=hello+world&tag=a&tag=b&tag=c";
+    private static final String COOKIES = "theme=dark; _ga=GA1.2.123456789.1700000000; lang=en-GB; "
+            + "consent=yes; RASESSION=5f3c1a9e-8d2b-4c7e-9a61-0b2d4e6f8a10; tracking=abcdefghijklmnop";
+
+    private FakeHttpExchange withCookies;
+
+    @Setup
+    public void setUp() {
+        Headers headers = new Headers();
+        headers.add("Cookie", COOKIES);
+        withCookies = new FakeHttpExchange("GET", "/", headers, new byte[0]);
+    }
+
+    @Benchmark
+    public Map<String, String> queryParameters() {
+        return QueryParameterUtil.parseQueryParameters(QUERY);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> multiValuedQueryParameters() {
+        return QueryParameterUtil.parseMultiValued(QUERY);
+    }
+
+    @Benchmark
+    public Optional<String> readCookie() {
+        return CookieUtil.readCookie(withCookies, "RASESSION");
+    }
+
+    @Benchmark
+    public Optional<String> readMissingCookie() {
+        return CookieUtil.readCookie(withCookies, "missing");
+    }
+}
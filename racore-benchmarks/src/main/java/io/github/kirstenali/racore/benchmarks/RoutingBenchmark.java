@@ -0,0 +1,59 @@
+package io.github.kirstenali.racore.benchmarks;
+
+import io.github.kirstenali.racore.core.routing.HttpMethod;
+import io.github.kirstenali.racore.core.routing.RouteMatch;
+import io.github.kirstenali.racore.core.routing.RouteTree;
+import io.github.kirstenali.racore.handlers.EndpointHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route lookup as done by {@code Endpoint} for every request, against tables of 10, 100 and 1000
+ * routes. Half of the routes are literal, half have a path variable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int routes;
+
+    private RouteTree tree;
+    private String literalPath;
+    private String paramPath;
+    private String missPath;
+
+    @Setup
+    public void setUp() {
+        tree = new RouteTree();
+        for (int i = 0; i < routes / 2; i++) {
+            tree.insert(new EndpointHandler(HttpMethod.GET, "/api/resource" + i + "/list", _ -> null));
+            tree.insert(new EndpointHandler(HttpMethod.GET, "/api/resource" + i + "/{id}/items", _ -> null));
+        }
+
+        int last = routes / 2 - 1;
+        literalPath = "/api/resource" + last + "/list";
+        paramPath = "/api/resource" + last + "/42/items";
+        missPath = "/api/resource" + routes + "/42/items";
+    }
+
+    @Benchmark
+    public RouteMatch literal() {
+        return tree.match(literalPath);
+    }
+
+    @Benchmark
+    public RouteMatch pathVariable() {
+        return tree.match(paramPath);
+    }
+
+    @Benchmark
+    public RouteMatch notFound() {
+        return tree.match(missPath);
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.kirstenali.racore.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.kirstenali.racore.core.Endpoint;
+import io.github.kirstenali.racore.servers.ServerRegistry;
+import io.github.kirstenali.racore.servers.nio.NioHttpServer;
+import io.github.kirstenali.racore.servers.servlet.RaCoreServlet;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The server backends under test, each started on an ephemeral loopback port and serving the
+ * routes registered on {@link Endpoint}.
+ */
+enum Backend {
+    /**
+     * The JDK's {@code HttpServer} with the executor from {@code server.executor}, as with {@code server.backend=jdk}.
+     * Unless set on the command line, {@value #NODELAY} is turned on: with Nagle's algorithm left enabled,
+     * small responses wait for the client's delayed ACK and latency is dominated by it.
+     */
+    JDK {
+        @Override
+        RunningServer start() {
+            if (System.getProperty(NODELAY) == null) System.setProperty(NODELAY, "true");
+            HttpServer server = ServerRegistry.getServer();
+            server.createContext("/", Endpoint::dispatch);
+            server.start();
+            return new RunningServer(server.getAddress().getPort(), () -> server.stop(0));
+        }
+
+        @Override
+        String settings() {
+            return NODELAY + "=" + System.getProperty(NODELAY, "false");
+        }
+    },
+
+    /** Embedded Tomcat running {@link RaCoreServlet} with async support. */
+    TOMCAT {
+        @Override
+        RunningServer start() throws Exception {
+            Path baseDir = Files.createTempDirectory("racore-loadtest-tomcat");
+            Tomcat tomcat = new Tomcat();
+            tomcat.setBaseDir(baseDir.toString());
+            tomcat.setPort(0);
+            tomcat.getConnector();
+
+            Context context = tomcat.addContext("", baseDir.toString());
+            Tomcat.addServlet(context, "racore", new RaCoreServlet()).setAsyncSupported(true);
+            context.addServletMappingDecoded("/*", "racore");
+
+            tomcat.start();
+            return new RunningServer(tomcat.getConnector().getLocalPort(), () -> {
+                try {
+                    tomcat.stop();
+                    tomcat.destroy();
+                } catch (LifecycleException e) {
+                    throw new RuntimeException("Failed to stop Tomcat", e);
+                }
+            });
+        }
+    },
+
+    /** {@link NioHttpServer} from racore-nio. */
+    NIO {
+        @Override
+        RunningServer start() {
+            NioHttpServer server = NioHttpServer.create(0);
+            server.createContext("/", Endpoint::dispatch);
+            server.start();
+            return new RunningServer(server.getAddress().getPort(), () -> server.stop(0));
+        }
+    };
+
+    static final String NODELAY = "sun.net.httpserver.nodelay";
+
+    abstract RunningServer start() throws Exception;
+
+    /** Server settings that affect the results, for the report; empty if none. */
+    String settings() {
+        return "";
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.kirstenali.racore.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Locale;
+
+/**
+ * Minimal blocking HTTP/1.1 client connection. It writes a prepared request and reads the
+ * response to its end, discarding the body, so the client does as little work as possible
+ * next to the server it measures.
+ */
+final class HttpConnection implements Closeable {
+    private static final int MAX_LINE = 8192;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final byte[] scratch = new byte[16 * 1024];
+    private boolean reusable = true;
+
+    HttpConnection(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+        out = socket.getOutputStream();
+    }
+
+    /** Whether the server left the connection open for another request. */
+    boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * Sends {@code request} and reads the whole response.
+     *
+     * @return the response status code
+     */
+    int exchange(byte[] request) throws IOException {
+        out.write(request);
+        out.flush();
+
+        String statusLine = readLine();
+        if (!statusLine.startsWith("HTTP/1.")) throw new IOException("Bad status line: " + statusLine);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean close = statusLine.startsWith("HTTP/1.0");
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) continue;
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "content-length" -> contentLength = Long.parseLong(value);
+                case "transfer-encoding" -> chunked = value.endsWith("chunked");
+                case "connection" -> close = value.contains("close") || (close && !value.contains("keep-alive"));
+                default -> { }
+            }
+        }
+
+        if (status == 204 || status == 304 || status < 200) {
+            // no body
+        } else if (chunked) {
+            skipChunkedBody();
+        } else if (contentLength >= 0) {
+            skip(contentLength);
+        } else {
+            while (in.read(scratch) != -1) {
+                // body ends when the server closes the connection
+            }
+            close = true;
+        }
+
+        reusable = !close;
+        return status;
+    }
+
+    private void skipChunkedBody() throws IOException {
+        while (true) {
+            String sizeLine = readLine();
+            int semicolon = sizeLine.indexOf(';');
+            long size = Long.parseLong((semicolon < 0 ? sizeLine : sizeLine.substring(0, semicolon)).trim(), 16);
+            if (size == 0) break;
+            skip(size);
+            readLine();
+        }
+        while (!readLine().isEmpty()) {
+            // trailers
+        }
+    }
+
+    private void skip(long n) throws IOException {
+        while (n > 0) {
+            int read = in.read(scratch, 0, (int) Math.min(n, scratch.length));
+            if (read < 0) throw new EOFException("Connection closed inside the response body");
+            n -= read;
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) throw new EOFException("Connection closed by the server");
+            if (line.length() >= MAX_LINE) throw new IOException("Response line too long");
+            if (b != '\r') line.append((char) b);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
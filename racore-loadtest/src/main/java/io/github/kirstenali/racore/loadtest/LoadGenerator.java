@@ -0,0 +1,99 @@
+package io.github.kirstenali.racore.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load: {@code concurrency} virtual threads each send a request, read the whole
+ * response and immediately send the next. Each thread records into its own histogram, so the
+ * client adds no contention of its own; the histograms are merged at the end.
+ * <p>
+ * Because a slow response delays the requests behind it, latencies are those seen by clients
+ * that wait for each answer, not by an open stream of arrivals.
+ * </p>
+ */
+final class LoadGenerator {
+    private LoadGenerator() {}
+
+    static ScenarioResult run(Backend backend, Scenario scenario, int port, LoadTestOptions options) throws Exception {
+        byte[] request = scenario.request(options);
+        long start = System.nanoTime();
+        long recordFrom = start + options.warmup().toNanos();
+        long stopAt = recordFrom + options.duration().toNanos();
+
+        List<Future<Worker>> workers = new ArrayList<>();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                workers.add(threads.submit(() -> new Worker(port, request, options.keepAlive()).run(recordFrom, stopAt)));
+            }
+        }
+
+        Histogram latency = new Histogram(3);
+        long requests = 0;
+        long errors = 0;
+        for (Future<Worker> future : workers) {
+            Worker worker = future.get();
+            latency.add(worker.latency);
+            requests += worker.requests;
+            errors += worker.errors;
+        }
+
+        double seconds = options.duration().toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        return new ScenarioResult(backend, scenario, requests, errors, requests / seconds, latency);
+    }
+
+    private static final class Worker {
+        private final int port;
+        private final byte[] request;
+        private final boolean keepAlive;
+        private final Histogram latency = new Histogram(3);
+        private long requests;
+        private long errors;
+
+        Worker(int port, byte[] request, boolean keepAlive) {
+            this.port = port;
+            this.request = request;
+            this.keepAlive = keepAlive;
+        }
+
+        Worker run(long recordFrom, long stopAt) {
+            HttpConnection connection = null;
+            long now;
+            while ((now = System.nanoTime()) < stopAt) {
+                boolean recording = now >= recordFrom;
+                long begin = now;
+                try {
+                    if (connection == null) connection = new HttpConnection(port);
+                    int status = connection.exchange(request);
+                    long elapsed = System.nanoTime() - begin;
+
+                    if (recording) {
+                        if (status >= 200 && status < 300) {
+                            requests++;
+                            latency.recordValue(elapsed / 1000);
+                        } else {
+                            errors++;
+                        }
+                    }
+                    if (!keepAlive || !connection.isReusable()) {
+                        connection.close();
+                        connection = null;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (recording) errors++;
+                    if (connection != null) connection.close();
+                    connection = null;
+                }
+            }
+            if (connection != null) connection.close();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.kirstenali.racore.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loopback load test comparing RaCore's server backends. Each backend is started in turn in this
+ * JVM and every scenario is run against it; the report lists throughput and p50/p99/p99.9
+ * latency per backend and scenario:
+ * <pre>{@code
+ * mvn -pl racore-loadtest -am package
+ * java -jar racore-loadtest/target/loadtest.jar --backends=jdk,nio --concurrency=64 --keep-alive=false
+ * }</pre>
+ * <p>
+ * Client and server share the machine and the JVM, so compare backends against each other
+ * rather than reading the numbers as absolute capacity.
+ * </p>
+ */
+public final class LoadTest {
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        List<ScenarioResult> results = run(options);
+        Report.print(results, options, System.out);
+        System.exit(0); // stop server threads the backends leave behind
+    }
+
+    static List<ScenarioResult> run(LoadTestOptions options) throws Exception {
+        LoadTestApp.defineRoutes(options);
+
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Backend backend : options.backends()) {
+            try (RunningServer server = backend.start()) {
+                for (Scenario scenario : options.scenarios()) {
+                    System.out.printf(Locale.ROOT, "%s / %s on port %d%n", backend.name().toLowerCase(Locale.ROOT),
+                            scenario.name().toLowerCase(Locale.ROOT), server.port());
+                    results.add(LoadGenerator.run(backend, scenario, server.port(), options));
+                }
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.kirstenali.racore.loadtest;
+
+import io.github.kirstenali.racore.core.responses.SseResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static io.github.kirstenali.racore.core.Endpoint.get;
+import static io.github.kirstenali.racore.core.Endpoint.post;
+
+/**
+ * Routes exercised by the {@link Scenario}s. Registered once per JVM; every backend serves them.
+ */
+final class LoadTestApp {
+    private static boolean routesDefined;
+
+    private LoadTestApp() {}
+
+    record Person(long id, String name, int age, List<String> roles) {
+    }
+
+    static synchronized void defineRoutes(LoadTestOptions options) throws IOException {
+        if (routesDefined) return;
+        routesDefined = true;
+
+        Path file = Files.createTempFile("racore-loadtest", ".bin");
+        file.toFile().deleteOnExit();
+        byte[] content = new byte[options.fileBytes()];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) ('a' + i % 26);
+        Files.write(file, content);
+
+        get("/json/{id}", request ->
+                new Person(Long.parseLong(request.getPathVariable("param0")), "Ada Lovelace", 36, List.of("admin", "user")));
+
+        get("/static/file.bin", _ -> file);
+
+        post("/upload", request -> "files=" + request.getUploadedFiles().size());
+
+        int events = options.sseEvents();
+        get("/events", _ -> (SseResponse) out -> {
+            for (int i = 0; i < events; i++) {
+                out.write(("id: " + i + "\ndata: {\"tick\":" + i + "}\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.kirstenali.racore.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}.
+ *
+ * @param backends    servers to measure, one after the other
+ * @param scenarios   request types to send to each server
+ * @param concurrency connections (and client threads) sending requests back to back
+ * @param warmup      time spent loading the server before latencies are recorded
+ * @param duration    time during which latencies are recorded
+ * @param keepAlive   whether connections are reused; otherwise every request opens a new one
+ * @param fileBytes   size of the static file
+ * @param uploadBytes size of the file part in multipart uploads
+ * @param sseEvents   events sent per SSE stream
+ */
+record LoadTestOptions(List<Backend> backends,
+                       List<Scenario> scenarios,
+                       int concurrency,
+                       Duration warmup,
+                       Duration duration,
+                       boolean keepAlive,
+                       int fileBytes,
+                       int uploadBytes,
+                       int sseEvents) {
+
+    static final String USAGE = """
+            Usage: java -jar loadtest.jar [options]
+              --backends=jdk,tomcat,nio              servers to measure (default: all)
+              --scenarios=json,static,multipart,sse  request types (default: all)
+              --concurrency=32                       concurrent connections
+              --warmup=5                             warm-up seconds per scenario
+              --duration=10                          measured seconds per scenario
+              --keep-alive=true                      reuse connections
+              --file-bytes=16384                     static file size
+              --upload-bytes=65536                   multipart file part size
+              --sse-events=10                        events per SSE stream
+            """;
+
+    static LoadTestOptions parse(String[] args) {
+        List<Backend> backends = List.of(Backend.values());
+        List<Scenario> scenarios = List.of(Scenario.values());
+        int concurrency = 32;
+        Duration warmup = Duration.ofSeconds(5);
+        Duration duration = Duration.ofSeconds(10);
+        boolean keepAlive = true;
+        int fileBytes = 16 * 1024;
+        int uploadBytes = 64 * 1024;
+        int sseEvents = 10;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Expected --name=value: " + arg);
+
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1).trim();
+            switch (name) {
+                case "backends" -> backends = parseList(value, Backend.class);
+                case "scenarios" -> scenarios = parseList(value, Scenario.class);
+                case "concurrency" -> concurrency = positive(name, value);
+                case "warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "duration" -> duration = Duration.ofSeconds(positive(name, value));
+                case "keep-alive" -> keepAlive = Boolean.parseBoolean(value);
+                case "file-bytes" -> fileBytes = positive(name, value);
+                case "upload-bytes" -> uploadBytes = positive(name, value);
+                case "sse-events" -> sseEvents = positive(name, value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return new LoadTestOptions(backends, scenarios, concurrency, warmup, duration, keepAlive,
+                fileBytes, uploadBytes, sseEvents);
+    }
+
+    private static <E extends Enum<E>> List<E> parseList(String value, Class<E> type) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> Enum.valueOf(type, s.toUpperCase(Locale.ROOT)))
+                .toList();
+    }
+
+    private static int positive(String name, String value) {
+        int n = Integer.parseInt(value);
+        if (n <= 0) throw new IllegalArgumentException("--" + name + " must be positive");
+        return n;
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.kirstenali.racore.loadtest;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prints results as a table, one row per backend and scenario.
+ */
+final class Report {
+    private static final String ROW = "%-8s %-10s %10s %8s %11s %9s %9s %9s %9s%n";
+
+    private Report() {}
+
+    static void print(List<ScenarioResult> results, LoadTestOptions options, PrintStream out) {
+        out.printf(Locale.ROOT, "%nconcurrency=%d keep-alive=%s warmup=%ds duration=%ds%n",
+                options.concurrency(), options.keepAlive(), options.warmup().toSeconds(), options.duration().toSeconds());
+        for (Backend backend : options.backends()) {
+            if (!backend.settings().isEmpty()) {
+                out.printf(Locale.ROOT, "%s: %s%n", backend.name().toLowerCase(Locale.ROOT), backend.settings());
+            }
+        }
+        out.println();
+        out.printf(Locale.ROOT, ROW, "backend", "scenario", "requests", "errors", "req/s",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        for (ScenarioResult result : results) {
+            out.printf(Locale.ROOT, ROW,
+                    result.backend().name().toLowerCase(Locale.ROOT),
+                    result.scenario().name().toLowerCase(Locale.ROOT),
+                    result.requests(),
+                    result.errors(),
+                    String.format(Locale.ROOT, "%.1f", result.throughput()),
+                    millis(result.percentileMillis(50)),
+                    millis(result.percentileMillis(99)),
+                    millis(result.percentileMillis(99.9)),
+                    millis(result.maxMillis()));
+        }
+    }
+
+    private static String millis(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
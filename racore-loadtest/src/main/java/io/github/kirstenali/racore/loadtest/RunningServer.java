@@ -0,0 +1,12 @@
+package io.github.kirstenali.racore.loadtest;
+
+/**
+ * A started backend listening on {@code port}; closing it runs {@code stopper} to stop the server.
+ */
+record RunningServer(int port, Runnable stopper) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        stopper.run();
+    }
+}
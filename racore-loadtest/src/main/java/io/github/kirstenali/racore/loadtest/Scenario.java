@@ -0,0 +1,68 @@
+package io.github.kirstenali.racore.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request types sent by the load generator; see {@link LoadTestApp} for the routes they hit.
+ */
+enum Scenario {
+    /** A small JSON object from a route with a path variable. */
+    JSON {
+        @Override
+        byte[] request(LoadTestOptions options) {
+            return head("GET", "/json/42", options, "").getBytes(StandardCharsets.ISO_8859_1);
+        }
+    },
+
+    /** A static file of {@code --file-bytes}. */
+    STATIC {
+        @Override
+        byte[] request(LoadTestOptions options) {
+            return head("GET", "/static/file.bin", options, "").getBytes(StandardCharsets.ISO_8859_1);
+        }
+    },
+
+    /** A multipart form with one field and one file part of {@code --upload-bytes}. */
+    MULTIPART {
+        @Override
+        byte[] request(LoadTestOptions options) {
+            String boundary = "----racore-loadtest-boundary";
+            ByteArrayOutputStream body = new ByteArrayOutputStream(options.uploadBytes() + 512);
+            body.writeBytes(("--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"description\"\r\n\r\n"
+                    + "load test upload\r\n"
+                    + "--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"upload.bin\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            for (int i = 0; i < options.uploadBytes(); i++) body.write('a' + i % 26);
+            body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+            ByteArrayOutputStream request = new ByteArrayOutputStream(body.size() + 256);
+            request.writeBytes(head("POST", "/upload", options,
+                    "Content-Type: multipart/form-data; boundary=" + boundary + "\r\n"
+                            + "Content-Length: " + body.size() + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            request.writeBytes(body.toByteArray());
+            return request.toByteArray();
+        }
+    },
+
+    /** An SSE stream of {@code --sse-events} events, read to its end. */
+    SSE {
+        @Override
+        byte[] request(LoadTestOptions options) {
+            return head("GET", "/events", options, "Accept: text/event-stream\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        }
+    };
+
+    /** The complete request, sent as is for every iteration. */
+    abstract byte[] request(LoadTestOptions options);
+
+    private static String head(String method, String path, LoadTestOptions options, String extraHeaders) {
+        return method + " " + path + " HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + (options.keepAlive() ? "" : "Connection: close\r\n")
+                + extraHeaders
+                + "\r\n";
+    }
+}
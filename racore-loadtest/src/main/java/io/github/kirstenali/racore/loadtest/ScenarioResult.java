@@ -0,0 +1,24 @@
+package io.github.kirstenali.racore.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Outcome of one scenario against one backend, over the measured period only.
+ *
+ * @param requests   responses received with a 2xx status
+ * @param errors     non-2xx responses and failed connections
+ * @param throughput successful requests per second
+ * @param latency    per-request latency in microseconds, from sending the request to reading the
+ *                   last byte of the response
+ */
+record ScenarioResult(Backend backend, Scenario scenario, long requests, long errors, double throughput,
+                      Histogram latency) {
+
+    double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double maxMillis() {
+        return latency.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.kirstenali.racore.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class LoadTestIntegrationTest {
+
+    private static LoadTestOptions shortRun(boolean keepAlive) {
+        return new LoadTestOptions(List.of(Backend.values()), List.of(Scenario.values()), 4,
+                Duration.ZERO, Duration.ofSeconds(1), keepAlive, 4096, 8192, 5);
+    }
+
+    @Test
+    @DisplayName("Every scenario completes without errors on every backend")
+    void allBackendsAndScenarios() throws Exception {
+        List<ScenarioResult> results = LoadTest.run(shortRun(true));
+
+        Assertions.assertEquals(Backend.values().length * Scenario.values().length, results.size());
+        for (ScenarioResult result : results) {
+            String label = result.backend() + "/" + result.scenario();
+            Assertions.assertTrue(result.requests() > 0, label + " made no requests");
+            Assertions.assertEquals(0, result.errors(), label + " had errors");
+            Assertions.assertTrue(result.percentileMillis(50) > 0, label + " recorded no latency");
+        }
+    }
+
+    @Test
+    @DisplayName("Requests succeed with a new connection each time")
+    void withoutKeepAlive() throws Exception {
+        LoadTestOptions options = shortRun(false);
+        options = new LoadTestOptions(options.backends(), List.of(Scenario.JSON), options.concurrency(),
+                options.warmup(), options.duration(), false, options.fileBytes(), options.uploadBytes(), options.sseEvents());
+
+        for (ScenarioResult result : LoadTest.run(options)) {
+            Assertions.assertTrue(result.requests() > 0, result.backend() + " made no requests");
+            Assertions.assertEquals(0, result.errors(), result.backend() + " had errors");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Reuses direct buffers, which are slow to allocate and only freed by the garbage collector.
+ * Socket reads and writes go through them without the temporary copy the JDK makes for heap buffers.
+ */
+final class DirectBufferPool {
+    private final int bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> pool;
+
+    DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        pool.offer(buffer);
+    }
+}
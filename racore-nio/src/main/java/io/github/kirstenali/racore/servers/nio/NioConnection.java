@@ -0,0 +1,322 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import com.sun.net.httpserver.Headers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One client connection, served by its own virtual thread with blocking socket I/O.
+ * <p>
+ * Requests are read and answered strictly in order, which is all HTTP/1.1 pipelining needs:
+ * pipelined requests simply wait in the input buffer. Response bytes collect in a direct output
+ * buffer that is written to the socket when it fills, when the handler flushes, before the
+ * connection blocks to read, and before the next pipelined request is dispatched, so a slow
+ * handler never holds back a response that is already complete.
+ * </p>
+ * <p>
+ * Every blocking read or write carries a deadline that the server's sweeper enforces by closing
+ * the socket: a request head must arrive within {@code server.idle-timeout-ms}, and each read of a
+ * request body or write of a response must make progress within it.
+ * </p>
+ */
+final class NioConnection implements Runnable {
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+    private static final int MAX_LINGER_BYTES = 1024 * 1024;
+    private static final long LINGER_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private final NioHttpServer server;
+    private final SocketChannel channel;
+    private final ByteBuffer in;
+    private final ByteBuffer out;
+
+    private volatile boolean idle;
+    private volatile long deadline = NO_DEADLINE;
+
+    NioConnection(NioHttpServer server, SocketChannel channel) {
+        this.server = server;
+        this.channel = channel;
+        this.in = server.buffers().acquire().flip();
+        this.out = server.buffers().acquire();
+    }
+
+    @Override
+    public void run() {
+        try {
+            RequestHead head;
+            while ((head = readHead()) != null) {
+                NioHttpExchange exchange;
+                try {
+                    exchange = new NioHttpExchange(server, this, head);
+                } catch (IOException e) {
+                    reject(400);
+                    break;
+                }
+                flush();
+                server.dispatch(exchange);
+                exchange.awaitCompletion();
+
+                if (!exchange.finish(MAX_DRAIN_BYTES) || server.isStopping()) break;
+            }
+            flush();
+        } catch (IOException e) {
+            // the client went away, timed out or sent something unreadable; nothing more can be sent
+        } finally {
+            close();
+        }
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    boolean isIdle() {
+        return idle;
+    }
+
+    /** Whether the current blocking read or write has run past its deadline. */
+    boolean isOverdue(long now) {
+        long current = deadline;
+        return current != NO_DEADLINE && now - current > 0;
+    }
+
+    /**
+     * Closes the socket from another thread, e.g. on idle timeout or shutdown. The connection's
+     * own thread then fails its blocking I/O and releases the buffers.
+     */
+    void abort() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already broken
+        }
+    }
+
+    private void close() {
+        abort();
+        server.connectionClosed(this);
+        server.buffers().release(in);
+        server.buffers().release(out);
+    }
+
+    // ---- request head ----
+
+    private RequestHead readHead() throws IOException {
+        idle = !in.hasRemaining();
+        long until = System.nanoTime() + server.idleTimeoutNanos();
+        try {
+            while (true) {
+                skipLeadingLineBreaks();
+                int end = findHeadEnd();
+                if (end >= 0) return parseHead(end);
+
+                if (in.remaining() >= in.capacity()) {
+                    reject(431);
+                    return null;
+                }
+                if (!fill(until)) return null;
+                idle = false;
+            }
+        } catch (BadRequest e) {
+            reject(e.status);
+            return null;
+        } finally {
+            idle = false;
+        }
+    }
+
+    private void skipLeadingLineBreaks() {
+        while (in.hasRemaining()) {
+            byte b = in.get(in.position());
+            if (b != '\r' && b != '\n') return;
+            in.position(in.position() + 1);
+        }
+    }
+
+    /** Returns the index just past the blank line ending the head, or -1 if it is not buffered yet. */
+    private int findHeadEnd() {
+        int lineStart = in.position();
+        for (int i = in.position(); i < in.limit(); i++) {
+            if (in.get(i) != '\n') continue;
+
+            int lineLength = i - lineStart;
+            if (lineStart > in.position() && (lineLength == 0 || (lineLength == 1 && in.get(lineStart) == '\r'))) {
+                return i + 1;
+            }
+            lineStart = i + 1;
+        }
+        return -1;
+    }
+
+    private RequestHead parseHead(int end) throws BadRequest {
+        byte[] bytes = new byte[end - in.position()];
+        in.get(bytes);
+        String[] lines = new String(bytes, StandardCharsets.ISO_8859_1).split("\r?\n");
+
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) throw new BadRequest(400);
+        if (!requestLine[2].startsWith("HTTP/1.")) throw new BadRequest(505);
+
+        URI uri;
+        try {
+            uri = new URI(requestLine[1]);
+        } catch (URISyntaxException e) {
+            throw new BadRequest(400);
+        }
+
+        Headers headers = new Headers();
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            if (line.isEmpty()) continue;
+
+            int colon = line.indexOf(':');
+            if (colon <= 0 || line.charAt(0) == ' ' || line.charAt(0) == '\t'
+                    || Character.isWhitespace(line.charAt(colon - 1))) {
+                throw new BadRequest(400);
+            }
+            headers.add(line.substring(0, colon), line.substring(colon + 1).trim());
+        }
+
+        return new RequestHead(requestLine[0], uri, requestLine[2], headers);
+    }
+
+    private void reject(int status) throws IOException {
+        writeAscii("HTTP/1.1 " + status + " " + NioHttpExchange.reasonPhrase(status)
+                + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+        flush();
+        lingeringClose();
+    }
+
+    /**
+     * Closing a socket with unread input makes the OS send a reset, which can destroy the error
+     * response before the client reads it. Half-close instead and discard what the client is
+     * still sending, for a bounded time and amount.
+     */
+    private void lingeringClose() throws IOException {
+        channel.shutdownOutput();
+        deadline = System.nanoTime() + LINGER_NANOS;
+        try {
+            long discarded = 0;
+            in.clear();
+            int n;
+            while (discarded < MAX_LINGER_BYTES && (n = channel.read(in)) > 0) {
+                discarded += n;
+                in.clear();
+            }
+        } finally {
+            in.clear().flip();
+            deadline = NO_DEADLINE;
+        }
+    }
+
+    // ---- input ----
+
+    /** Whether more request bytes, i.e. a pipelined request, are already buffered. */
+    boolean hasBufferedInput() {
+        return in.hasRemaining();
+    }
+
+    int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!in.hasRemaining() && !fill(System.nanoTime() + server.idleTimeoutNanos())) return -1;
+
+        int n = Math.min(len, in.remaining());
+        in.get(b, off, n);
+        return n;
+    }
+
+    int read() throws IOException {
+        if (!in.hasRemaining() && !fill(System.nanoTime() + server.idleTimeoutNanos())) return -1;
+        return in.get() & 0xFF;
+    }
+
+    /**
+     * Reads more bytes from the socket, first sending anything still buffered for the client.
+     * The read is aborted if nothing arrives by {@code until}.
+     */
+    private boolean fill(long until) throws IOException {
+        flush();
+        in.compact();
+        deadline = until;
+        try {
+            return channel.read(in) > 0;
+        } finally {
+            deadline = NO_DEADLINE;
+            in.flip();
+        }
+    }
+
+    // ---- output ----
+
+    void write(byte[] b, int off, int len) throws IOException {
+        if (len >= out.capacity()) {
+            flush();
+            writeFully(ByteBuffer.wrap(b, off, len));
+            return;
+        }
+        while (len > 0) {
+            if (!out.hasRemaining()) flush();
+            int n = Math.min(len, out.remaining());
+            out.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    void writeAscii(CharSequence s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            if (!out.hasRemaining()) flush();
+            out.put((byte) s.charAt(i));
+        }
+    }
+
+    void flush() throws IOException {
+        if (out.position() == 0) return;
+        out.flip();
+        try {
+            writeFully(out);
+        } finally {
+            out.clear();
+        }
+    }
+
+    long transferFrom(FileChannel file, long position, long count) throws IOException {
+        flush();
+        deadline = System.nanoTime() + server.idleTimeoutNanos();
+        try {
+            return file.transferTo(position, count, channel);
+        } finally {
+            deadline = NO_DEADLINE;
+        }
+    }
+
+    /** Writes {@code buffer}, aborting if the client stops reading for longer than the idle timeout. */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        try {
+            while (buffer.hasRemaining()) {
+                deadline = System.nanoTime() + server.idleTimeoutNanos();
+                channel.write(buffer);
+            }
+        } finally {
+            deadline = NO_DEADLINE;
+        }
+    }
+
+    private static final class BadRequest extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        BadRequest(int status) {
+            super(null, null, false, false);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link HttpExchange} for one request on a {@link NioConnection}.
+ * <p>
+ * Follows the JDK server's contract: {@code sendResponseHeaders} with a length of {@code 0}
+ * streams a chunked body, {@code -1} sends none, and the exchange is finished once the response
+ * body is closed (or immediately when there is none). It may be finished from any thread, which
+ * is what lets handlers respond asynchronously.
+ * </p>
+ */
+final class NioHttpExchange extends HttpExchange {
+    private final NioHttpServer server;
+    private final NioConnection connection;
+    private final RequestHead head;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private final RequestBody rawRequestBody;
+    private final ResponseBody rawResponseBody;
+    private InputStream requestBody;
+    private OutputStream responseBody;
+
+    private volatile HttpContext context;
+    private volatile HttpPrincipal principal;
+    private volatile int responseCode = -1;
+    private volatile boolean keepAlive;
+
+    NioHttpExchange(NioHttpServer server, NioConnection connection, RequestHead head) throws IOException {
+        this.server = server;
+        this.connection = connection;
+        this.head = head;
+        this.rawRequestBody = RequestBody.of(connection, head);
+        this.rawResponseBody = new ResponseBody(connection, this);
+        this.requestBody = rawRequestBody;
+        this.responseBody = rawResponseBody;
+        this.keepAlive = head.isHttp11()
+                ? !head.hasToken("Connection", "close")
+                : head.hasToken("Connection", "keep-alive");
+        // a body framed both ways may be read differently by a proxy in front; don't reuse the connection
+        if (head.headers().containsKey("Transfer-Encoding") && head.headers().containsKey("Content-Length")) {
+            keepAlive = false;
+        }
+
+        if (head.isHttp11() && !rawRequestBody.isEmpty() && head.hasToken("Expect", "100-continue")) {
+            connection.writeAscii("HTTP/1.1 100 Continue\r\n\r\n");
+        }
+    }
+
+    void setContext(HttpContext context) {
+        this.context = context;
+    }
+
+    void setPrincipal(HttpPrincipal principal) {
+        this.principal = principal;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return head.headers();
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return head.uri();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return head.method();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        try {
+            requestBody.close();
+            if (responseCode == -1) {
+                closeConnectionAfterResponse();
+                complete();
+            } else {
+                responseBody.close();
+            }
+        } catch (IOException e) {
+            closeConnectionAfterResponse();
+            complete();
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode != -1) throw new IOException("Response headers have already been sent");
+        responseCode = rCode;
+
+        boolean bodyless = rCode < 200 || rCode == 204 || rCode == 304;
+        boolean isHead = "HEAD".equals(head.method());
+
+        if (bodyless) {
+            responseHeaders.remove("Content-Length");
+            rawResponseBody.begin(ResponseBody.Framing.NONE, 0);
+        } else if (isHead) {
+            // -1 keeps a Content-Length the handler set to describe the GET response
+            if (responseLength > 0) responseHeaders.set("Content-Length", Long.toString(responseLength));
+            rawResponseBody.begin(ResponseBody.Framing.DISCARD, 0);
+        } else if (responseLength < 0) {
+            responseHeaders.set("Content-Length", "0");
+            rawResponseBody.begin(ResponseBody.Framing.NONE, 0);
+        } else if (responseLength > 0) {
+            responseHeaders.set("Content-Length", Long.toString(responseLength));
+            rawResponseBody.begin(ResponseBody.Framing.FIXED, responseLength);
+        } else if (head.isHttp11()) {
+            responseHeaders.set("Transfer-Encoding", "chunked");
+            rawResponseBody.begin(ResponseBody.Framing.CHUNKED, 0);
+        } else {
+            keepAlive = false;
+            rawResponseBody.begin(ResponseBody.Framing.UNTIL_CLOSE, 0);
+        }
+
+        if (RequestHead.containsToken(responseHeaders.get("Connection"), "close")) keepAlive = false;
+        if (!keepAlive) {
+            responseHeaders.set("Connection", "close");
+        } else if (!head.isHttp11()) {
+            responseHeaders.set("Connection", "keep-alive");
+        }
+        if (!responseHeaders.containsKey("Date")) responseHeaders.set("Date", server.httpDate());
+
+        connection.writeAscii(head.isHttp11() ? "HTTP/1.1 " : "HTTP/1.0 ");
+        connection.writeAscii(Integer.toString(rCode));
+        connection.writeAscii(" ");
+        connection.writeAscii(reasonPhrase(rCode));
+        connection.writeAscii("\r\n");
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                connection.writeAscii(header.getKey());
+                connection.writeAscii(": ");
+                connection.writeAscii(value);
+                connection.writeAscii("\r\n");
+            }
+        }
+        connection.writeAscii("\r\n");
+
+        if (bodyless || responseLength < 0) complete();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        try {
+            return (InetSocketAddress) connection.channel().getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) connection.channel().getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getProtocol() {
+        return head.protocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) attributes.remove(name);
+        else attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) requestBody = i;
+        if (o != null) responseBody = o;
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return principal;
+    }
+
+    // ---- lifecycle, driven by the connection ----
+
+    void closeConnectionAfterResponse() {
+        keepAlive = false;
+    }
+
+    /** Marks the response as finished; the connection moves on to the next request. */
+    void complete() {
+        if (completion.isDone()) return;
+        try {
+            // with a pipelined request waiting, the connection flushes before dispatching it
+            if (!connection.hasBufferedInput() || !keepAlive) connection.flush();
+        } catch (IOException e) {
+            keepAlive = false;
+        }
+        completion.complete(null);
+    }
+
+    void awaitCompletion() {
+        completion.join();
+    }
+
+    /**
+     * Called on the connection's thread once the response is complete. Discards any unread
+     * request body and returns whether the connection can serve another request.
+     */
+    boolean finish(int drainLimit) {
+        if (!keepAlive) return false;
+        try {
+            return rawRequestBody.drain(drainLimit);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static String reasonPhrase(int status) {
+        return switch (status) {
+            case 100 -> "Continue";
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 206 -> "Partial Content";
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 303 -> "See Other";
+            case 304 -> "Not Modified";
+            case 307 -> "Temporary Redirect";
+            case 308 -> "Permanent Redirect";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 408 -> "Request Timeout";
+            case 409 -> "Conflict";
+            case 411 -> "Length Required";
+            case 413 -> "Payload Too Large";
+            case 415 -> "Unsupported Media Type";
+            case 416 -> "Range Not Satisfiable";
+            case 429 -> "Too Many Requests";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 502 -> "Bad Gateway";
+            case 503 -> "Service Unavailable";
+            case 504 -> "Gateway Timeout";
+            case 505 -> "HTTP Version Not Supported";
+            default -> "";
+        };
+    }
+}
@@ -0,0 +1,336 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.github.kirstenali.racore.config.RaConfig;
+import io.github.kirstenali.racore.core.utils.FileUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP/1.1 server implementing the {@link HttpServer} contract, for use in place of the JDK's
+ * default implementation:
+ * <pre>{@code
+ * ServerRegistry.register(NioHttpServer::create);
+ * }</pre>
+ * <p>
+ * Every connection is served by its own virtual thread doing blocking socket I/O through pooled
+ * direct buffers, so there is no single dispatcher thread and idle keep-alive connections cost
+ * only a parked virtual thread. Handlers run on the connection's thread unless an executor is set.
+ * Connections support keep-alive and pipelining, and fixed-length file responses are sent with
+ * {@link java.nio.channels.FileChannel#transferTo} straight to the socket.
+ * </p>
+ * <p>
+ * Connections are closed when a request head, or any read of a request body or write of a
+ * response, takes longer than {@code server.idle-timeout-ms}; a sweeper checks the deadlines
+ * periodically. Request heads larger than {@code server.max-header-size} are rejected with 431.
+ * </p>
+ */
+public final class NioHttpServer extends HttpServer {
+    private final List<NioHttpContext> contexts = new CopyOnWriteArrayList<>();
+    private final Set<NioConnection> connections = ConcurrentHashMap.newKeySet();
+    private final DirectBufferPool buffers = new DirectBufferPool(RaConfig.getServerMaxHeaderSize(), 1024);
+    private final ThreadFactory connectionThreads = Thread.ofVirtual().name("racore-nio-", 0).factory();
+    private final ScheduledThreadPoolExecutor timer;
+    private final long idleTimeoutNanos = RaConfig.getServerIdleTimeout().toNanos();
+
+    private ServerSocketChannel serverChannel;
+    private volatile Executor executor;
+    private Thread acceptor;
+    private volatile boolean stopping;
+    private volatile CachedDate date = new CachedDate(0, "");
+
+    private NioHttpServer() {
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "racore-nio-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a server bound to {@code port}; matches the factory shape {@code ServerRegistry.register} expects.
+     */
+    public static NioHttpServer create(int port) {
+        try {
+            return create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create NioHttpServer on port " + port, e);
+        }
+    }
+
+    public static NioHttpServer create(InetSocketAddress address, int backlog) throws IOException {
+        NioHttpServer server = new NioHttpServer();
+        if (address != null) server.bind(address, backlog);
+        return server;
+    }
+
+    @Override
+    public synchronized void bind(InetSocketAddress address, int backlog) throws IOException {
+        if (serverChannel != null) throw new IllegalStateException("Server is already bound");
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, backlog);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (serverChannel == null) throw new IllegalStateException("Server is not bound");
+        if (acceptor != null) throw new IllegalStateException("Server has already been started");
+
+        long sweepMs = Math.clamp(TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 4, 10, 1000);
+        timer.scheduleWithFixedDelay(this::sweep, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+
+        acceptor = new Thread(this::acceptLoop, "racore-nio-acceptor");
+        acceptor.start();
+    }
+
+    @Override
+    public synchronized void setExecutor(Executor executor) {
+        if (acceptor != null) throw new IllegalStateException("Server has already been started");
+        this.executor = executor;
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void stop(int delay) {
+        if (delay < 0) throw new IllegalArgumentException("Negative delay");
+        stopping = true;
+        try {
+            if (serverChannel != null) serverChannel.close();
+        } catch (IOException ignored) {
+            // nothing left to accept either way
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(delay);
+        while (true) {
+            connections.forEach(connection -> {
+                if (connection.isIdle()) connection.abort();
+            });
+            if (connections.isEmpty() || System.nanoTime() >= deadline) break;
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        connections.forEach(NioConnection::abort);
+        timer.shutdownNow();
+
+        Thread current = acceptor;
+        if (current != null) {
+            try {
+                current.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public HttpContext createContext(String path, HttpHandler handler) {
+        if (path == null || !path.startsWith("/")) throw new IllegalArgumentException("Invalid context path: " + path);
+        synchronized (contexts) {
+            for (NioHttpContext context : contexts) {
+                if (context.getPath().equals(path)) throw new IllegalArgumentException("Context already exists: " + path);
+            }
+            NioHttpContext context = new NioHttpContext(path, handler, this);
+            contexts.add(context);
+            return context;
+        }
+    }
+
+    @Override
+    public HttpContext createContext(String path) {
+        return createContext(path, null);
+    }
+
+    @Override
+    public void removeContext(String path) {
+        if (!contexts.removeIf(context -> context.getPath().equals(path))) {
+            throw new IllegalArgumentException("No context for " + path);
+        }
+    }
+
+    @Override
+    public void removeContext(HttpContext context) {
+        if (!contexts.remove(context)) throw new IllegalArgumentException("Unknown context " + context.getPath());
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        try {
+            return serverChannel == null ? null : (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ---- connections ----
+
+    private void acceptLoop() {
+        while (!stopping) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (stopping) break;
+                System.err.println("NioHttpServer failed to accept a connection: " + e.getMessage());
+                backOff();
+                continue;
+            }
+
+            NioConnection connection = new NioConnection(this, channel);
+            connections.add(connection);
+            connectionThreads.newThread(connection).start();
+        }
+    }
+
+    private static void backOff() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    DirectBufferPool buffers() {
+        return buffers;
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    void connectionClosed(NioConnection connection) {
+        connections.remove(connection);
+    }
+
+    long idleTimeoutNanos() {
+        return idleTimeoutNanos;
+    }
+
+    /** Closes connections whose current read or write has run past its deadline. */
+    private void sweep() {
+        long now = System.nanoTime();
+        connections.forEach(connection -> {
+            if (connection.isOverdue(now)) connection.abort();
+        });
+    }
+
+    /** Returns the current time as an HTTP date, formatted at most once per second. */
+    String httpDate() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate cached = date;
+        if (cached.second != second) {
+            cached = new CachedDate(second, FileUtils.httpDate(second * 1000));
+            date = cached;
+        }
+        return cached.value;
+    }
+
+    // ---- dispatch ----
+
+    void dispatch(NioHttpExchange exchange) {
+        Executor current = executor;
+        if (current == null) {
+            handle(exchange);
+            return;
+        }
+        try {
+            current.execute(() -> handle(exchange));
+        } catch (RejectedExecutionException e) {
+            fail(exchange, 503);
+        }
+    }
+
+    private void handle(NioHttpExchange exchange) {
+        try {
+            NioHttpContext context = findContext(exchange.getRequestURI().getPath());
+            if (context == null || context.getHandler() == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+
+            exchange.setContext(context);
+            if (!authenticate(context, exchange)) return;
+            new Filter.Chain(context.getFilters(), context.getHandler()).doFilter(exchange);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Handler for " + exchange.getRequestURI() + " failed: " + e);
+            fail(exchange, 500);
+        }
+    }
+
+    private static boolean authenticate(NioHttpContext context, NioHttpExchange exchange) throws IOException {
+        Authenticator authenticator = context.getAuthenticator();
+        if (authenticator == null) return true;
+
+        Authenticator.Result result = authenticator.authenticate(exchange);
+        if (result instanceof Authenticator.Success success) {
+            exchange.setPrincipal(success.getPrincipal());
+            return true;
+        }
+
+        int status = switch (result) {
+            case Authenticator.Failure failure -> failure.getResponseCode();
+            case Authenticator.Retry retry -> retry.getResponseCode();
+            default -> 500;
+        };
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+        return false;
+    }
+
+    /** Answers with {@code status} if nothing was sent yet, and closes the connection afterwards. */
+    private static void fail(NioHttpExchange exchange, int status) {
+        exchange.closeConnectionAfterResponse();
+        try {
+            if (exchange.getResponseCode() == -1) exchange.sendResponseHeaders(status, -1);
+        } catch (IOException ignored) {
+            // the connection is closed below either way
+        }
+        exchange.complete();
+    }
+
+    private NioHttpContext findContext(String path) {
+        if (path == null) path = "/";
+
+        NioHttpContext best = null;
+        for (NioHttpContext context : contexts) {
+            if (path.startsWith(context.getPath())
+                    && (best == null || context.getPath().length() > best.getPath().length())) {
+                best = context;
+            }
+        }
+        return best;
+    }
+
+    private record CachedDate(long second, String value) {
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Request body framed by {@code Content-Length} or chunked transfer coding, read straight from
+ * the connection's input buffer. It never reads past the end of the body, so the bytes that
+ * follow belong to the next pipelined request.
+ */
+final class RequestBody extends InputStream {
+    private static final int MAX_LINE = 4096;
+
+    private final NioConnection connection;
+    private final boolean chunked;
+    private long remaining;
+    private boolean firstChunk = true;
+    private boolean eof;
+    private boolean closed;
+
+    private RequestBody(NioConnection connection, boolean chunked, long length) {
+        this.connection = connection;
+        this.chunked = chunked;
+        this.remaining = length;
+        this.eof = !chunked && length == 0;
+    }
+
+    static RequestBody of(NioConnection connection, RequestHead head) throws IOException {
+        List<String> transferEncoding = head.headers().get("Transfer-Encoding");
+        if (transferEncoding != null) {
+            String last = transferEncoding.getLast();
+            String[] codings = last.split(",");
+            if (!codings[codings.length - 1].trim().equalsIgnoreCase("chunked")) {
+                throw new IOException("Unsupported Transfer-Encoding: " + last);
+            }
+            return new RequestBody(connection, true, 0);
+        }
+
+        List<String> lengths = head.headers().get("Content-Length");
+        if (lengths == null) return new RequestBody(connection, false, 0);
+        if (lengths.stream().distinct().count() > 1) throw new IOException("Conflicting Content-Length headers");
+
+        String contentLength = lengths.getFirst();
+        try {
+            long length = Long.parseLong(contentLength.trim());
+            if (length < 0) throw new NumberFormatException();
+            return new RequestBody(connection, false, length);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Content-Length: " + contentLength);
+        }
+    }
+
+    boolean isEmpty() {
+        return eof;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream is closed");
+        if (eof) return -1;
+        if (len == 0) return 0;
+
+        if (chunked && remaining == 0) {
+            if (!firstChunk) readLine(); // CRLF after the previous chunk
+            firstChunk = false;
+            remaining = readChunkSize();
+            if (remaining == 0) {
+                while (!readLine().isEmpty()) {
+                    // trailers are not exposed
+                }
+                eof = true;
+                return -1;
+            }
+        }
+
+        int n = connection.read(b, off, (int) Math.min(len, remaining));
+        if (n < 0) throw new EOFException("Connection closed before the request body ended");
+        remaining -= n;
+        if (!chunked && remaining == 0) eof = true;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return eof ? 0 : (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Closing the stream does not consume the rest of the body; the connection
+     * {@linkplain #drain(int) drains} it before reading the next request.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Discards up to {@code limit} unread body bytes, returning whether the body was fully consumed.
+     */
+    boolean drain(int limit) throws IOException {
+        closed = false;
+        byte[] scratch = new byte[Math.min(limit, 8192)];
+        long drained = 0;
+        int n;
+        while (drained <= limit && (n = read(scratch, 0, scratch.length)) != -1) {
+            drained += n;
+        }
+        return eof;
+    }
+
+    private long readChunkSize() throws IOException {
+        String line = readLine();
+        int end = line.indexOf(';');
+        String size = (end >= 0 ? line.substring(0, end) : line).trim();
+        try {
+            long length = Long.parseLong(size, 16);
+            if (length < 0) throw new NumberFormatException();
+            return length;
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk size: " + size);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = connection.read()) != '\n') {
+            if (b < 0) throw new EOFException("Connection closed inside a chunked request body");
+            if (line.length() >= MAX_LINE) throw new IOException("Chunk header line too long");
+            if (b != '\r') line.append((char) b);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import com.sun.net.httpserver.Headers;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * The parsed request line and headers of one request.
+ */
+record RequestHead(String method, URI uri, String protocol, Headers headers) {
+
+    boolean isHttp11() {
+        return "HTTP/1.1".equals(protocol);
+    }
+
+    boolean hasToken(String header, String token) {
+        return containsToken(headers.get(header), token);
+    }
+
+    /** Whether a comma-separated header such as {@code Connection} lists {@code token}. */
+    static boolean containsToken(List<String> values, String token) {
+        if (values == null) return false;
+        for (String value : values) {
+            for (String part : value.split(",")) {
+                if (part.trim().equalsIgnoreCase(token)) return true;
+            }
+        }
+        return false;
+    }
+}
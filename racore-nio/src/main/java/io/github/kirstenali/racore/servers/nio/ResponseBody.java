@@ -0,0 +1,104 @@
+package io.github.kirstenali.racore.servers.nio;
+
+import io.github.kirstenali.racore.core.utils.FileTransferTarget;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * Response body written into the connection's output buffer, framed according to the length
+ * passed to {@link NioHttpExchange#sendResponseHeaders}. Fixed-length bodies accept file
+ * transfers that go straight from the file to the socket.
+ */
+final class ResponseBody extends OutputStream implements FileTransferTarget {
+    enum Framing { PENDING, FIXED, CHUNKED, UNTIL_CLOSE, NONE, DISCARD }
+
+    private final NioConnection connection;
+    private final NioHttpExchange exchange;
+    private final byte[] one = new byte[1];
+
+    private Framing framing = Framing.PENDING;
+    private long remaining;
+    private boolean closed;
+
+    ResponseBody(NioConnection connection, NioHttpExchange exchange) {
+        this.connection = connection;
+        this.exchange = exchange;
+    }
+
+    void begin(Framing framing, long length) {
+        this.framing = framing;
+        this.remaining = length;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        one[0] = (byte) b;
+        write(one, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream is closed");
+        if (len == 0) return;
+
+        switch (framing) {
+            case PENDING -> throw new IOException("Response headers have not been sent");
+            case NONE -> throw new IOException("Response has no body");
+            case DISCARD -> { }
+            case FIXED -> {
+                if (len > remaining) throw new IOException("Too many bytes written to a response of fixed length");
+                connection.write(b, off, len);
+                remaining -= len;
+            }
+            case CHUNKED -> {
+                connection.writeAscii(Integer.toHexString(len));
+                connection.writeAscii("\r\n");
+                connection.write(b, off, len);
+                connection.writeAscii("\r\n");
+            }
+            case UNTIL_CLOSE -> connection.write(b, off, len);
+        }
+    }
+
+    @Override
+    public long transferFrom(FileChannel file, long position, long count) throws IOException {
+        if (closed) throw new IOException("Stream is closed");
+        if (framing != Framing.FIXED) throw new IOException("File transfers need a response of fixed length");
+        if (count > remaining) throw new IOException("Too many bytes written to a response of fixed length");
+
+        long sent = connection.transferFrom(file, position, count);
+        remaining -= sent;
+        return sent;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!closed && framing != Framing.PENDING && framing != Framing.NONE && framing != Framing.DISCARD) {
+            connection.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            switch (framing) {
+                case PENDING, UNTIL_CLOSE -> exchange.closeConnectionAfterResponse();
+                case FIXED -> {
+                    if (remaining > 0) {
+                        exchange.closeConnectionAfterResponse();
+                        throw new IOException("Response closed with " + remaining + " bytes missing");
+                    }
+                }
+                case CHUNKED -> connection.writeAscii("0\r\n\r\n");
+                case NONE, DISCARD -> { }
+            }
+        } finally {
+            exchange.complete();
+        }
+    }
+}
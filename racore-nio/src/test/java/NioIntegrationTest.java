@@ -0,0 +1,161 @@
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class NioIntegrationTest {
+
+    static final int PORT = 8082;
+    static final String BASE_URL = "http://localhost:" + PORT;
+    static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void bootOnce() throws Exception {
+        TestNioApp.start();
+
+        boolean up = false;
+        for (int i = 0; i < 80 && !up; i++) {
+            try {
+                var req = HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/1")).GET().build();
+                client.send(req, HttpResponse.BodyHandlers.ofString());
+                up = true;
+            } catch (Exception e) {
+                Thread.sleep(100);
+            }
+        }
+        if (!up) Assertions.fail("NIO server did not start on " + BASE_URL);
+    }
+
+    @Test
+    @DisplayName("GET and POST work over the NIO server")
+    void getAndPost() throws Exception {
+        var get = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/123")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, get.statusCode());
+        Assertions.assertTrue(get.body().contains("\"id\":\"123\""), get.body());
+
+        var post = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/echo"))
+                        .POST(HttpRequest.BodyPublishers.ofString("hello nio")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, post.statusCode());
+        Assertions.assertEquals("\"hello nio\"", post.body());
+    }
+
+    @Test
+    @DisplayName("Pipelined requests, including a chunked body, are answered in order on one connection")
+    void pipelining() throws Exception {
+        String requests = "GET /getPerson/1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "POST /echo HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n6\r\n world\r\n0\r\n\r\n"
+                + "GET /getPerson/3 HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+
+        String responses;
+        try (Socket socket = new Socket("localhost", PORT)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            responses = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        Assertions.assertEquals(3, responses.split("HTTP/1.1 200 OK", -1).length - 1, responses);
+        int first = responses.indexOf("\"id\":\"1\"");
+        int second = responses.indexOf("\"hello world\"");
+        int third = responses.indexOf("\"id\":\"3\"");
+        Assertions.assertTrue(first >= 0 && first < second && second < third, responses);
+    }
+
+    @Test
+    @DisplayName("A pipelined response is sent without waiting for a slow handler behind it")
+    void pipeliningBehindSlowHandler() throws Exception {
+        String requests = "GET /getPerson/1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET /slow HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+
+            long start = System.nanoTime();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int n;
+            while (!received.toString(StandardCharsets.UTF_8).contains("Nio Person") && (n = in.read(buf)) > 0) {
+                received.write(buf, 0, n);
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            Assertions.assertTrue(received.toString(StandardCharsets.UTF_8).contains("Nio Person"));
+            Assertions.assertTrue(elapsedMs < 2_000, "first response took " + elapsedMs + " ms");
+
+            String rest = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Assertions.assertTrue(rest.endsWith("\"slow\""), rest);
+        }
+    }
+
+    @Test
+    @DisplayName("Large files and ranges are sent intact; HEAD sends only the headers")
+    void fileTransfer() throws Exception {
+        byte[] expected = Files.readAllBytes(TestNioApp.largeFile());
+
+        var full = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/files/large.bin")).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(200, full.statusCode());
+        Assertions.assertArrayEquals(expected, full.body());
+
+        var range = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/files/large.bin"))
+                        .header("Range", "bytes=1000-1999").GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(206, range.statusCode());
+        Assertions.assertArrayEquals(java.util.Arrays.copyOfRange(expected, 1000, 2000), range.body());
+
+        var head = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/files/large.bin")).HEAD().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertEquals(200, head.statusCode());
+        Assertions.assertEquals(String.valueOf(expected.length), head.headers().firstValue("Content-Length").orElse(null));
+        Assertions.assertEquals(0, head.body().length);
+    }
+
+    @Test
+    @DisplayName("Async handlers complete on the NIO server")
+    void asyncHandler() throws Exception {
+        var res = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/async")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, res.statusCode());
+        Assertions.assertEquals("\"done\"", res.body());
+    }
+
+    @Test
+    @DisplayName("A request body that stops arriving is cut off after the idle timeout")
+    void stalledBody() throws Exception {
+        String request = "POST /echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000000\r\n\r\nhello";
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+
+            long start = System.nanoTime();
+            socket.getInputStream().readAllBytes();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            Assertions.assertTrue(elapsedMs < 5_000, "connection stayed open for " + elapsedMs + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("Oversized request heads are rejected with 431")
+    void oversizedHead() throws Exception {
+        String request = "GET /getPerson/1 HTTP/1.1\r\nHost: localhost\r\nX-Big: " + "a".repeat(20_000) + "\r\n\r\n";
+        try (Socket socket = new Socket("localhost", PORT)) {
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            in.transferTo(response);
+            Assertions.assertTrue(response.toString(StandardCharsets.US_ASCII).startsWith("HTTP/1.1 431"));
+        }
+    }
+}
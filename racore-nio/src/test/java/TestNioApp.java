@@ -0,0 +1,57 @@
+import io.github.kirstenali.racore.servers.ServerRegistry;
+import io.github.kirstenali.racore.servers.nio.NioHttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.kirstenali.racore.core.Endpoint.*;
+
+public final class TestNioApp {
+
+    static final int FILE_SIZE = 1024 * 1024;
+    private static Path largeFile;
+
+    private TestNioApp() {}
+
+    public static void start() {
+        // must happen before Endpoint starts the server
+        ServerRegistry.register(NioHttpServer::create);
+        defineRoutes();
+    }
+
+    public static void defineRoutes() {
+        get("/getPerson/{id}", request -> Map.of("id", request.getPathVariable("param0"), "name", "Nio Person"));
+        post("/echo", request -> {
+            try {
+                return new String(request.getExchange().getRequestBody().readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        get("/files/large.bin", _ -> largeFile());
+        getAsync("/async", _ -> CompletableFuture.supplyAsync(() -> "done",
+                CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)));
+        getAsync("/slow", _ -> CompletableFuture.supplyAsync(() -> "slow",
+                CompletableFuture.delayedExecutor(3, TimeUnit.SECONDS)));
+    }
+
+    static synchronized Path largeFile() {
+        if (largeFile == null) {
+            try {
+                byte[] bytes = new byte[FILE_SIZE];
+                for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) (i % 251);
+                largeFile = Files.createTempFile("racore-nio", ".bin");
+                Files.write(largeFile, bytes);
+                largeFile.toFile().deleteOnExit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return largeFile;
+    }
+}
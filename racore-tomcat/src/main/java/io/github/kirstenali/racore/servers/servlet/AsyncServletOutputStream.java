@@ -0,0 +1,121 @@
+package io.github.kirstenali.racore.servers.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Response body for an exchange that has gone async, written in the container's non-blocking
+ * mode.
+ * <p>
+ * Writers keep the plain {@link OutputStream} API: each write waits until the container reports
+ * the connection writable, parking the calling (virtual) thread rather than a container thread.
+ * Closing the stream completes the {@link AsyncContext}.
+ * </p>
+ */
+final class AsyncServletOutputStream extends OutputStream implements WriteListener {
+
+    private final AsyncContext async;
+    private final ServletOutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition writable = lock.newCondition();
+
+    private volatile Throwable error;
+    private volatile boolean closed;
+
+    AsyncServletOutputStream(AsyncContext async) throws IOException {
+        this.async = async;
+        this.out = async.getResponse().getOutputStream();
+        out.setWriteListener(this);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        awaitWritable();
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) return;
+        awaitWritable();
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        awaitWritable();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (error == null) awaitWritable();
+        } finally {
+            async.complete();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Stream is closed");
+    }
+
+    /**
+     * Returns once a write will not block. {@code isReady()} returning {@code false} makes the
+     * container call {@link #onWritePossible()} later; the lock is held from that check until
+     * the wait starts, so the wake-up cannot be missed.
+     */
+    private void awaitWritable() throws IOException {
+        lock.lock();
+        try {
+            while (true) {
+                if (error != null) throw new IOException("Response failed", error);
+                if (out.isReady()) return;
+                writable.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to write the response");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        signal();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+        signal();
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            writable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.kirstenali.racore.servers.servlet;
 
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -8,10 +10,26 @@ import io.github.kirstenali.racore.core.Endpoint;
 
 import java.io.IOException;
 
+/**
+ * Dispatches servlet requests to RaCore's endpoints.
+ * <p>
+ * Register it with {@code asyncSupported} (e.g. {@code Tomcat.addServlet(...).setAsyncSupported(true)})
+ * so async handlers and streamed or SSE responses give the container thread back: they are
+ * finished on virtual threads and written in non-blocking mode. Without it they still work, but
+ * hold a container thread until they are done.
+ * </p>
+ */
 public final class RaCoreServlet extends HttpServlet {
 
     @Override
-    protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        Endpoint.dispatch(new ServletHttpExchange(req, resp));
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (req.getDispatcherType() != DispatcherType.ASYNC) {
+            Endpoint.dispatch(new ServletHttpExchange(req, resp));
+            if (req.isAsyncStarted()) return;
+        }
+        // an aborted response ends with an exception, so the container drops the connection
+        if (req.getAttribute(ServletHttpExchange.ABORTED_ATTR) instanceof Throwable cause) {
+            throw new ServletException("Response failed after it was committed", cause);
+        }
     }
 }
\ No newline at end of file
@@ -2,75 +2,66 @@ package io.github.kirstenali.racore.servers.servlet;
 
 import com.sun.net.httpserver.*;
 
+import io.github.kirstenali.racore.servers.AsyncExchange;
+
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.*;
 
-public final class ServletHttpExchange extends HttpExchange {
+public final class ServletHttpExchange extends HttpExchange implements AsyncExchange {
+    /** Request attribute holding the failure passed to {@link #abort}, rethrown by {@link RaCoreServlet}. */
+    static final String ABORTED_ATTR = "racore.aborted";
 
     private final HttpServletRequest req;
     private final HttpServletResponse resp;
 
-    private final Headers requestHeaders;
-    private final Headers responseHeaders;
-    private final Map<String, Object> attributes;
-
-    private final URI requestUri;
-    private final DummyHttpContext context;
+    // built on first use; most requests never ask for some of these
+    private Headers requestHeaders;
+    private Headers responseHeaders;
+    private URI requestUri;
+    private DummyHttpContext context;
 
-    private int responseCode;
+    private volatile int responseCode;
+    private volatile AsyncContext async;
+    private AsyncServletOutputStream asyncBody;
 
     public ServletHttpExchange(HttpServletRequest req, HttpServletResponse resp) {
         this.req = Objects.requireNonNull(req, "HttpServletRequest must not be null");
         this.resp = Objects.requireNonNull(resp, "HttpServletResponse must not be null");
-
-        this.requestHeaders = copyRequestHeaders(this.req);
-        this.responseHeaders = new Headers();
-        this.attributes = new HashMap<>();
-
-        this.requestUri = buildRequestUri(this.req);
-        this.context = new DummyHttpContext(this.req.getRequestURI());
-
         this.responseCode = -1;
     }
 
-    private static Headers copyRequestHeaders(HttpServletRequest req) {
-        Headers headers = new Headers();
-
-        Enumeration<String> names = req.getHeaderNames();
-        while (names != null && names.hasMoreElements()) {
-            String name = names.nextElement();
-            Enumeration<String> values = req.getHeaders(name);
-            while (values != null && values.hasMoreElements()) {
-                headers.add(name, values.nextElement());
-            }
-        }
-        return headers;
-    }
-
+    /**
+     * Like the JDK server, returns the request target as sent (path and query), without scheme and host.
+     */
     private static URI buildRequestUri(HttpServletRequest req) {
+        String path = req.getRequestURI();
         String qs = req.getQueryString();
-        String full = req.getRequestURL().toString() + (qs != null ? "?" + qs : "");
-        return URI.create(full);
+        return URI.create(qs != null ? path + "?" + qs : path);
     }
 
     @Override
     public Headers getRequestHeaders() {
+        if (requestHeaders == null) requestHeaders = new ServletRequestHeaders(req);
         return requestHeaders;
     }
 
     @Override
     public Headers getResponseHeaders() {
+        if (responseHeaders == null) responseHeaders = new Headers();
         return responseHeaders;
     }
 
     @Override
     public URI getRequestURI() {
+        if (requestUri == null) requestUri = buildRequestUri(req);
         return requestUri;
     }
 
@@ -81,17 +72,67 @@ public final class ServletHttpExchange extends HttpExchange {
 
     @Override
     public HttpContext getHttpContext() {
+        if (context == null) context = new DummyHttpContext(req.getRequestURI());
         return context;
     }
 
+    /**
+     * Puts the request into async mode if the servlet is registered with {@code asyncSupported}.
+     * The container then does not wait for the response; the framework finishes it from another
+     * thread and the response body is written in non-blocking mode.
+     */
+    @Override
+    public synchronized boolean startAsync() {
+        if (async != null) return true;
+        if (!req.isAsyncSupported()) return false;
+
+        AsyncContext context = req.startAsync(req, resp);
+        context.setTimeout(0); // async handlers have their own timeout; streams stay open until they end
+        async = context;
+        return true;
+    }
+
+    /**
+     * Hands the failure back to the container, which closes the connection of a committed
+     * response that ends with an exception. In async mode the request is dispatched back to the
+     * servlet to rethrow it; otherwise the servlet rethrows it once the framework returns.
+     */
+    @Override
+    public void abort(Throwable cause) {
+        req.setAttribute(ABORTED_ATTR, cause);
+        AsyncContext context = async;
+        if (context != null) context.dispatch();
+    }
+
     @Override
     public void close() {
+        if (async != null) {
+            completeAsync();
+            return;
+        }
         try {
             resp.flushBuffer();
         } catch (Exception ignored) {
         }
     }
 
+    private void completeAsync() {
+        AsyncServletOutputStream body;
+        synchronized (this) {
+            body = asyncBody;
+        }
+        try {
+            if (body != null) body.close();
+            else async.complete();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private synchronized AsyncServletOutputStream asyncBody() throws IOException {
+        if (asyncBody == null) asyncBody = new AsyncServletOutputStream(async);
+        return asyncBody;
+    }
+
     @Override
     public InputStream getRequestBody() {
         try {
@@ -104,6 +145,7 @@ public final class ServletHttpExchange extends HttpExchange {
     @Override
     public OutputStream getResponseBody() {
         try {
+            if (async != null) return asyncBody();
             return resp.getOutputStream();
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -112,15 +154,15 @@ public final class ServletHttpExchange extends HttpExchange {
 
     @Override
     public void sendResponseHeaders(int rCode, long responseLength) {
-        applyResponseHeaders(resp, responseHeaders);
+        if (responseHeaders != null) applyResponseHeaders(resp, responseHeaders);
 
         this.responseCode = rCode;
         resp.setStatus(rCode);
 
         if (responseLength > 0) {
             resp.setContentLengthLong(responseLength);
-        } else if (responseLength < 0) {
-            // HttpExchange: -1 means "no response body"
+        } else if (responseLength < 0 && !"HEAD".equals(req.getMethod())) {
+            // HttpExchange: -1 means "no response body"; a HEAD response keeps the GET length
             resp.setContentLength(0);
         }
     }
@@ -136,7 +178,8 @@ public final class ServletHttpExchange extends HttpExchange {
 
     @Override
     public InetSocketAddress getRemoteAddress() {
-        return new InetSocketAddress(req.getRemoteHost(), req.getRemotePort());
+        // the address rather than the host name, which may cost a reverse DNS lookup
+        return new InetSocketAddress(req.getRemoteAddr(), req.getRemotePort());
     }
 
     @Override
@@ -146,7 +189,7 @@ public final class ServletHttpExchange extends HttpExchange {
 
     @Override
     public InetSocketAddress getLocalAddress() {
-        return new InetSocketAddress(req.getLocalName(), req.getLocalPort());
+        return new InetSocketAddress(req.getLocalAddr(), req.getLocalPort());
     }
 
     @Override
@@ -156,12 +199,13 @@ public final class ServletHttpExchange extends HttpExchange {
 
     @Override
     public Object getAttribute(String name) {
-        return attributes.get(name);
+        return req.getAttribute(name);
     }
 
     @Override
     public void setAttribute(String name, Object value) {
-        attributes.put(name, value);
+        if (value == null) req.removeAttribute(name);
+        else req.setAttribute(name, value);
     }
 
     @Override
@@ -0,0 +1,160 @@
+package io.github.kirstenali.racore.servers.servlet;
+
+import com.sun.net.httpserver.Headers;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Request headers read straight from the servlet request.
+ * <p>
+ * Lookups by name ({@code getFirst}, {@code get}, {@code containsKey}) go to the container, which
+ * has already parsed them, so nothing is copied per request. Anything else, including mutation,
+ * copies the headers once and behaves like a plain {@link Headers} from then on.
+ * </p>
+ */
+final class ServletRequestHeaders extends Headers {
+
+    private final HttpServletRequest req;
+    private boolean copied;
+
+    ServletRequestHeaders(HttpServletRequest req) {
+        this.req = req;
+    }
+
+    @Override
+    public String getFirst(String key) {
+        if (copied) return super.getFirst(key);
+        return key == null ? null : req.getHeader(key);
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        if (copied) return super.get(key);
+        if (!(key instanceof String name)) return null;
+
+        Enumeration<String> values = req.getHeaders(name);
+        if (values == null || !values.hasMoreElements()) return null;
+        return Collections.list(values);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (copied) return super.containsKey(key);
+        return key instanceof String name && req.getHeader(name) != null;
+    }
+
+    // ---- everything else works on a copy ----
+
+    private void copy() {
+        if (!copied) {
+            copied = true;
+            Enumeration<String> names = req.getHeaderNames();
+            while (names != null && names.hasMoreElements()) {
+                String name = names.nextElement();
+                Enumeration<String> values = req.getHeaders(name);
+                while (values != null && values.hasMoreElements()) {
+                    super.add(name, values.nextElement());
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        copy();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        copy();
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        copy();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public List<String> put(String key, List<String> value) {
+        copy();
+        return super.put(key, value);
+    }
+
+    @Override
+    public void add(String key, String value) {
+        copy();
+        super.add(key, value);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        copy();
+        super.set(key, value);
+    }
+
+    @Override
+    public List<String> remove(Object key) {
+        copy();
+        return super.remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends List<String>> t) {
+        copy();
+        super.putAll(t);
+    }
+
+    @Override
+    public void clear() {
+        copied = true;
+        super.clear();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super List<String>, ? extends List<String>> function) {
+        copy();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        copy();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<List<String>> values() {
+        copy();
+        return super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, List<String>>> entrySet() {
+        copy();
+        return super.entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        copy();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        copy();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        copy();
+        return super.toString();
+    }
+}
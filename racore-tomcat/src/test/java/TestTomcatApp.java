@@ -1,11 +1,16 @@
 import org.apache.catalina.Context;
 import org.apache.catalina.startup.Tomcat;
+import io.github.kirstenali.racore.core.responses.SseResponse;
 import io.github.kirstenali.racore.servers.servlet.RaCoreServlet;
 
 import java.io.File;
 import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static io.github.kirstenali.racore.core.Endpoint.get;
+import static io.github.kirstenali.racore.core.Endpoint.getAsync;
 
 public final class TestTomcatApp {
 
@@ -22,13 +27,14 @@ public final class TestTomcatApp {
         tomcat = new Tomcat();
         tomcat.setPort(port);
 
-        tomcat.getConnector();
+        // few container threads, so tests notice requests that hold on to one
+        tomcat.getConnector().setProperty("maxThreads", "4");
 
         tomcat.setBaseDir(new File("target/tomcat").getAbsolutePath());
 
         Context ctx = tomcat.addContext("", new File(".").getAbsolutePath());
 
-        Tomcat.addServlet(ctx, "racore", new RaCoreServlet());
+        Tomcat.addServlet(ctx, "racore", new RaCoreServlet()).setAsyncSupported(true);
         ctx.addServletMappingDecoded("/*", "racore");
 
         defineRoutes();
@@ -39,6 +45,26 @@ public final class TestTomcatApp {
 
     public static void defineRoutes() {
         get("/getPerson/{id}", _ -> "Hello Person");
+        get("/echoRequest", req -> {
+            var exchange = req.getExchange();
+            exchange.setAttribute("seen", req.getParam("q"));
+            return exchange.getRequestHeaders().getFirst("X-Test") + ":" + exchange.getAttribute("seen")
+                    + ":" + exchange.getRequestURI();
+        });
+        getAsync("/async", _ -> CompletableFuture.supplyAsync(() -> "Hello Async",
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+        get("/stream/broken", _ -> (SseResponse) out -> {
+            out.write("data: partial\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            throw new IllegalStateException("stream failed");
+        });
+        get("/events", _ -> (SseResponse) out -> {
+            for (int i = 0; i < 20; i++) {
+                out.write(("data: " + i + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(100);
+            }
+        });
     }
 
     public static void stop() throws Exception {
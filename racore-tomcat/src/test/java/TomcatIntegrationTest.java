@@ -1,9 +1,16 @@
 import org.junit.jupiter.api.*;
 
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class TomcatIntegrationTest {
 
@@ -34,7 +41,7 @@ public class TomcatIntegrationTest {
     }
 
     @Test
-    @DisplayName("GET /getPerson/{id} works under Tomcat")
+    @DisplayName("GET and HEAD /getPerson/{id} work under Tomcat")
     void getPerson_underTomcat() throws Exception {
         var req = HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/123"))
                 .GET()
@@ -44,5 +51,70 @@ public class TomcatIntegrationTest {
 
         Assertions.assertEquals(200, res.statusCode());
         Assertions.assertTrue(res.body().contains("Hello Person"));
+
+        var head = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/123")).HEAD().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, head.statusCode());
+        Assertions.assertEquals(res.headers().firstValue("Content-Length"), head.headers().firstValue("Content-Length"));
+        Assertions.assertEquals("", head.body());
+    }
+
+    @Test
+    @DisplayName("Headers, URI and attributes are read through the servlet request")
+    void exchangeViews_underTomcat() throws Exception {
+        var req = HttpRequest.newBuilder(URI.create(BASE_URL + "/echoRequest?q=a%20b"))
+                .header("X-Test", "yes")
+                .GET()
+                .build();
+
+        var res = client.send(req, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, res.statusCode());
+        Assertions.assertTrue(res.body().contains("yes:a b:/echoRequest?q=a%20b"), res.body());
+    }
+
+    @Test
+    @DisplayName("Async handlers and SSE streams don't hold container threads")
+    void asyncAndSse_releaseContainerThreads() throws Exception {
+        var async = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/async")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, async.statusCode());
+        Assertions.assertTrue(async.body().contains("Hello Async"), async.body());
+
+        // more open streams than the connector has threads; all of them must start
+        var pending = new ArrayList<CompletableFuture<HttpResponse<InputStream>>>();
+        for (int i = 0; i < 6; i++) {
+            pending.add(client.sendAsync(HttpRequest.newBuilder(URI.create(BASE_URL + "/events")).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream()));
+        }
+        var streams = new ArrayList<BufferedReader>();
+        for (var response : pending) {
+            var res = response.get(1, TimeUnit.SECONDS);
+            Assertions.assertEquals(200, res.statusCode());
+            streams.add(new BufferedReader(new InputStreamReader(res.body())));
+        }
+
+        var req = HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/1"))
+                .timeout(Duration.ofSeconds(1))
+                .GET()
+                .build();
+        Assertions.assertEquals(200, client.send(req, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        for (var stream : streams) {
+            try (stream) {
+                long events = stream.lines().filter(line -> line.startsWith("data: ")).count();
+                Assertions.assertEquals(20, events);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A detached stream that fails after its headers were sent drops the connection")
+    void failedStream_underTomcat() {
+        var req = HttpRequest.newBuilder(URI.create(BASE_URL + "/stream/broken"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        Assertions.assertThrows(java.io.IOException.class, () -> client.send(req, HttpResponse.BodyHandlers.ofString()));
     }
-}
\ No newline at end of file
+}
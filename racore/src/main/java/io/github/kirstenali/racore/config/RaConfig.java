@@ -2,6 +2,9 @@ package io.github.kirstenali.racore.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 public class RaConfig {
@@ -22,16 +25,236 @@ public class RaConfig {
     }
 
     public static int getServerPort() {
-        String port = properties.getProperty("server.port", "8080"); // Default port is 8080
+        return getInt("server.port", 8080);
+    }
+
+    public static String getServerBackend() {
+        return properties.getProperty("server.backend", "jdk").trim().toLowerCase();
+    }
+
+    /**
+     * Executor used by the default JDK {@code HttpServer}: {@code cached} (default),
+     * {@code virtual}, {@code bounded} or {@code forkjoin}.
+     */
+    public static String getServerExecutor() {
+        return properties.getProperty("server.executor", "cached").trim().toLowerCase();
+    }
+
+    public static int getExecutorCoreThreads() {
+        return getInt("server.executor.core", Runtime.getRuntime().availableProcessors());
+    }
+
+    public static int getExecutorMaxThreads() {
+        return getInt("server.executor.max", 200);
+    }
+
+    public static int getExecutorQueueCapacity() {
+        return getInt("server.executor.queue", 1000);
+    }
+
+    public static int getExecutorParallelism() {
+        return getInt("server.executor.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Default time an asynchronous handler may take before the request fails with 503; {@code 0} disables it.
+     * Defaults to 30 s.
+     */
+    public static Duration getAsyncTimeout() {
+        return Duration.ofMillis(getLong("server.async-timeout-ms", 30_000));
+    }
+
+    /**
+     * How long a kept-alive connection may wait for its next request on servers that manage
+     * their own connections. Defaults to 60 s.
+     */
+    public static Duration getServerIdleTimeout() {
+        return Duration.ofMillis(getLong("server.idle-timeout-ms", 60_000));
+    }
+
+    /**
+     * Largest request line plus headers accepted on servers that parse HTTP themselves. Defaults to 16 KB.
+     */
+    public static int getServerMaxHeaderSize() {
+        return getInt("server.max-header-size", 16 * 1024);
+    }
+
+    /**
+     * Maximum number of bytes {@code Request.getBodyAs} will read from a request body. Defaults to 10 MB.
+     */
+    public static long getMaxBodySize() {
+        return getLong("server.max-body-size", 10L * 1024 * 1024);
+    }
+
+    /**
+     * Total size of the in-memory static asset cache in bytes; {@code 0} disables it. Defaults to 32 MB.
+     */
+    public static long getStaticCacheMaxBytes() {
+        return getLong("static.cache.max-bytes", 32L * 1024 * 1024);
+    }
+
+    /**
+     * Files up to this size keep their contents in the static asset cache. Defaults to 256 KB.
+     */
+    public static long getStaticCacheMaxEntryBytes() {
+        return getLong("static.cache.max-entry-bytes", 256L * 1024);
+    }
+
+    public static int getSessionMaxCount() {
+        return getInt("session.max-count", 100_000);
+    }
+
+    /**
+     * How long the session reaper takes to sweep the whole store once; {@code 0} disables it. Defaults to 60 s.
+     */
+    public static Duration getSessionReapInterval() {
+        return Duration.ofSeconds(getLong("session.reap-interval-seconds", 60));
+    }
+
+    /**
+     * Minimum age of a session's last-access time before an access updates it. Defaults to 1 s.
+     */
+    public static Duration getSessionTouchGranularity() {
+        return Duration.ofMillis(getLong("session.touch-granularity-ms", 1000));
+    }
+
+    /**
+     * How often persistent session stores write back changed sessions. Defaults to 1 s.
+     */
+    public static Duration getSessionFlushInterval() {
+        return Duration.ofMillis(getLong("session.flush-interval-ms", 1000));
+    }
+
+    /**
+     * Largest session cookie value written or accepted in stateless session mode. Defaults to 4000 bytes.
+     */
+    public static int getSessionCookieMaxBytes() {
+        return getInt("session.cookie.max-bytes", 4000);
+    }
+
+    /**
+     * Classes that may appear in a stored or cookie session besides the {@code java.lang},
+     * {@code java.util}, {@code java.math} and {@code java.time} types, listed in
+     * {@code session.deserialization.allow} as {@link java.io.ObjectInputFilter} patterns
+     * such as {@code com.example.Cart} or {@code com.example.model.*}, separated by commas.
+     */
+    public static List<String> getSessionDeserializationAllowList() {
+        return getList("session.deserialization.allow");
+    }
+
+    /**
+     * Largest part {@code Request.streamParts} accepts, in bytes; {@code -1} means no limit. Defaults to {@code -1}.
+     */
+    public static long getMultipartMaxPartSize() {
+        return getLong("multipart.max-part-size", -1);
+    }
+
+    /**
+     * Largest multipart body {@code Request.streamParts} accepts, in bytes; {@code -1} means no limit.
+     * Defaults to {@code -1}.
+     */
+    public static long getMultipartMaxSize() {
+        return getLong("multipart.max-size", -1);
+    }
+
+    public static boolean isCompressionEnabled() {
+        return getBoolean("compression.enabled", true);
+    }
+
+    /**
+     * JSON and streamed bodies smaller than this many bytes are sent uncompressed. Defaults to 1 KB.
+     */
+    public static int getCompressionThreshold() {
+        return getInt("compression.threshold", 1024);
+    }
+
+    public static int getCompressionLevel() {
+        return getInt("compression.level", 6);
+    }
+
+    /**
+     * Whether Jackson modules found via {@code ServiceLoader} are registered on the shared mapper.
+     * Off by default: enabling it changes the JSON produced for types such as {@code Optional}
+     * and {@code java.time} whenever the matching module happens to be on the classpath.
+     */
+    public static boolean isJsonModuleDiscoveryEnabled() {
+        return getBoolean("json.find-modules", false);
+    }
+
+    public static boolean isJsonBytecodeAccelerationEnabled() {
+        return getBoolean("json.bytecode-acceleration", true);
+    }
+
+    /**
+     * JSON responses up to this many bytes are sent with a fixed {@code Content-Length};
+     * larger ones switch to chunked encoding. Defaults to 64 KB.
+     */
+    public static int getJsonBufferSize() {
+        return getInt("json.buffer-size", 64 * 1024);
+    }
+
+    /**
+     * Fully qualified class names listed in {@code json.prewarm}, separated by commas.
+     */
+    public static List<String> getJsonPrewarmTypes() {
+        return getList("json.prewarm");
+    }
+
+    /**
+     * Records per-route request counts and latencies, see {@code RequestMetrics}. Defaults to {@code true}.
+     */
+    public static boolean isMetricsEnabled() {
+        return getBoolean("metrics.enabled", true);
+    }
+
+    /**
+     * Path {@code Endpoint.serveMetrics()} exposes metrics on. Defaults to {@code /metrics}.
+     */
+    public static String getMetricsPath() {
+        return properties.getProperty("metrics.path", "/metrics").trim();
+    }
+
+    /**
+     * Minimum duration before an enabled RaCore JFR event is recorded, read from
+     * {@code jfr.<event>.threshold-ms} where {@code event} is {@code request}, {@code routing},
+     * {@code serialization}, {@code session-load} or {@code multipart}. Defaults to 0.
+     */
+    public static Duration getJfrThreshold(String event) {
+        return Duration.ofMillis(getLong("jfr." + event + ".threshold-ms", 0));
+    }
+
+    private static List<String> getList(String key) {
+        String value = properties.getProperty(key, "");
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    private static boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    private static long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
         try {
-            return Integer.parseInt(port);
+            return Long.parseLong(value.trim());
         } catch (NumberFormatException e) {
-            System.err.println("Invalid port number in config; using default port 8080.");
-            return 8080;
+            System.err.println("Invalid value for " + key + " in config; using default " + defaultValue + ".");
+            return defaultValue;
         }
     }
 
-    public static String getServerBackend() {
-        return properties.getProperty("server.backend", "jdk").trim().toLowerCase();
+    private static int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + " in config; using default " + defaultValue + ".");
+            return defaultValue;
+        }
     }
 }
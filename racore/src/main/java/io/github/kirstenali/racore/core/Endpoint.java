@@ -1,34 +1,47 @@
 package io.github.kirstenali.racore.core;
 
-import org.apache.commons.fileupload2.core.DiskFileItem;
 import io.github.kirstenali.racore.config.RaConfig;
-import io.github.kirstenali.racore.core.requests.CustomRequest;
+import io.github.kirstenali.racore.core.metrics.RequestMetrics;
+import io.github.kirstenali.racore.core.metrics.RequestTimer;
+import io.github.kirstenali.racore.core.requests.PayloadTooLargeException;
 import io.github.kirstenali.racore.core.requests.Request;
 import io.github.kirstenali.racore.core.responses.SseResponse;
 import io.github.kirstenali.racore.core.responses.StreamingResponse;
+import io.github.kirstenali.racore.core.routing.HttpMethod;
+import io.github.kirstenali.racore.core.routing.RouteMatch;
+import io.github.kirstenali.racore.core.routing.RouteTree;
 import io.github.kirstenali.racore.core.utils.FileUtils;
-import io.github.kirstenali.racore.core.utils.FormDataExtractor;
-import io.github.kirstenali.racore.core.utils.QueryParameterUtil;
+import io.github.kirstenali.racore.core.utils.StaticAssetCache;
 import io.github.kirstenali.racore.handlers.EndpointHandler;
 import io.github.kirstenali.racore.handlers.Handled;
 import io.github.kirstenali.racore.interceptors.Interceptor;
+import io.github.kirstenali.racore.servers.AsyncExchange;
 import io.github.kirstenali.racore.servers.ServerRegistry;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static io.github.kirstenali.racore.core.responses.ResponseWriters.*;
 
 public class Endpoint {
-    private static final Map<String, EndpointHandler> endpoints = new HashMap<>();
+    private static final RouteTree routes = new RouteTree();
     private static final List<Interceptor> interceptors = new ArrayList<>();
     private static HttpServer server;
     private static final String STATIC_DIRECTORY = "src/main/resources/static";
@@ -41,6 +54,7 @@ public class Endpoint {
 
     public static void initializeServer() {
         server = ServerRegistry.getServer();
+        server.createContext("/", Endpoint::handleExchange);
         server.start();
         System.out.println("Server started on port " + server.getAddress().getPort());
     }
@@ -50,27 +64,74 @@ public class Endpoint {
     }
 
     public static void get(String endpoint, Function<Request, ?> callback) {
-        registerEndpoint("GET", endpoint, callback);
+        registerEndpoint(HttpMethod.GET, endpoint, callback);
     }
 
     public static void post(String endpoint, Function<Request, ?> callback) {
-        registerEndpoint("POST", endpoint, callback);
+        registerEndpoint(HttpMethod.POST, endpoint, callback);
     }
 
     public static void put(String endpoint, Function<Request, ?> callback) {
-        registerEndpoint("PUT", endpoint, callback);
+        registerEndpoint(HttpMethod.PUT, endpoint, callback);
     }
 
     public static void delete(String endpoint, Function<Request, ?> callback) {
-        registerEndpoint("DELETE", endpoint, callback);
+        registerEndpoint(HttpMethod.DELETE, endpoint, callback);
     }
 
     public static void patch(String endpoint, Function<Request, ?> callback) {
-        registerEndpoint("PATCH", endpoint, callback);
+        registerEndpoint(HttpMethod.PATCH, endpoint, callback);
+    }
+
+    /**
+     * Registers a GET handler that completes asynchronously, so the worker thread is released
+     * while the returned stage is pending. Post-interceptors and response writing run once it
+     * completes. A stage that takes longer than {@code server.async-timeout-ms} fails the
+     * request with 503.
+     */
+    public static void getAsync(String endpoint, Function<Request, ? extends CompletionStage<?>> callback) {
+        getAsync(endpoint, RaConfig.getAsyncTimeout(), callback);
+    }
+
+    public static void getAsync(String endpoint, Duration timeout, Function<Request, ? extends CompletionStage<?>> callback) {
+        registerAsyncEndpoint(HttpMethod.GET, endpoint, timeout, callback);
+    }
+
+    /**
+     * Registers a POST handler that completes asynchronously; see {@link #getAsync(String, Function)}.
+     */
+    public static void postAsync(String endpoint, Function<Request, ? extends CompletionStage<?>> callback) {
+        postAsync(endpoint, RaConfig.getAsyncTimeout(), callback);
+    }
+
+    public static void postAsync(String endpoint, Duration timeout, Function<Request, ? extends CompletionStage<?>> callback) {
+        registerAsyncEndpoint(HttpMethod.POST, endpoint, timeout, callback);
     }
 
     public static void serveStatic() {
-        registerEndpoint("GET","/*", Endpoint::handleStaticRequest);
+        registerEndpoint(HttpMethod.GET, "/*", Endpoint::handleStaticRequest);
+    }
+
+    /**
+     * Exposes {@link RequestMetrics} in the Prometheus text format on {@code metrics.path}.
+     */
+    public static void serveMetrics() {
+        serveMetrics(RaConfig.getMetricsPath());
+    }
+
+    public static void serveMetrics(String endpoint) {
+        registerEndpoint(HttpMethod.GET, endpoint, Endpoint::handleMetricsRequest);
+    }
+
+    private static Handled handleMetricsRequest(Request request) {
+        HttpExchange exchange = request.getExchange();
+        exchange.getResponseHeaders().set("Content-Type", RequestMetrics.PROMETHEUS_CONTENT_TYPE);
+        try {
+            sendResponse(exchange, 200, RequestMetrics.toPrometheus());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Handled.INSTANCE;
     }
 
     private static Path handleStaticRequest(Request request) {
@@ -83,6 +144,9 @@ public class Endpoint {
         }
 
         Path fullPath = Paths.get(STATIC_DIRECTORY, requestPath).normalize();
+        if (StaticAssets.CACHE.getIfPresent(fullPath) != null) {
+            return fullPath;
+        }
         return isValidFilePath(fullPath) ? fullPath : null;
     }
 
@@ -90,39 +154,147 @@ public class Endpoint {
         return Files.exists(path) && !Files.isDirectory(path) && path.startsWith(STATIC_DIRECTORY);
     }
 
-    private static void registerEndpoint(String method, String endpoint, Function<Request, ?> callback) {
-        String regex = endpointToRegex(endpoint);
-        EndpointHandler handler = new EndpointHandler(method, Pattern.compile(regex), callback);
-
-        endpoints.put(endpoint, handler);
-
-        if (server != null) {
-            server.createContext(endpoint.split("\\{")[0], Endpoint::handleExchange);
-        }
+    private static void registerEndpoint(HttpMethod method, String endpoint, Function<Request, ?> callback) {
+        routes.insert(new EndpointHandler(method, endpoint, callback));
     }
 
-    private static String endpointToRegex(String endpoint) {
-        return endpoint.replaceAll("\\{[^}]+}", "([^/]+)");
+    private static void registerAsyncEndpoint(HttpMethod method, String endpoint, Duration timeout,
+                                              Function<Request, ? extends CompletionStage<?>> callback) {
+        Duration limit = timeout == null || timeout.isZero() || timeout.isNegative() ? null : timeout;
+        routes.insert(new EndpointHandler(method, endpoint, callback, limit));
     }
 
     private static void handleExchange(HttpExchange exchange) throws IOException {
+        RequestTimer timer = RequestMetrics.start();
+        boolean detached = false;
+        try {
+            detached = handleExchange(exchange, timer);
+        } finally {
+            if (!detached) timer.finish(exchange);
+        }
+    }
+
+    /**
+     * @return {@code true} if the response is finished on another thread, which then also
+     *         finishes {@code timer}
+     */
+    private static boolean handleExchange(HttpExchange exchange, RequestTimer timer) throws IOException {
         if (!runPreInterceptors(exchange)) {
             sendResponse(exchange, 403, "Forbidden");
-            return;
+            return false;
         }
 
         String path = exchange.getRequestURI().getPath();
-        MatchedEndpoint matchedEndpoint = findMatchingEndpoint(path);
+        RouteMatch match = findMatchingEndpoint(path);
 
-        if (matchedEndpoint == null) {
+        if (match == null) {
             sendResponse(exchange, 404, "Not Found");
-            return;
+            return false;
+        }
+
+        HttpMethod method = HttpMethod.parse(exchange.getRequestMethod());
+        if (method == null) {
+            sendResponse(exchange, 501, "Not Implemented");
+            return false;
         }
 
-        Object response = processRequest(exchange, matchedEndpoint.handler, matchedEndpoint.matcher);
+        EndpointHandler handler = match.handler(method);
+        if (handler == null && method == HttpMethod.HEAD) {
+            handler = match.handler(HttpMethod.GET); // the response body is discarded by ExchangeUtil
+        }
+        if (handler == null) {
+            handleUnregisteredMethod(exchange, method, match);
+            return false;
+        }
+        timer.routed(handler);
+
+        Object response;
+        try {
+            response = processRequest(exchange, handler, match.pathValues());
+        } catch (PayloadTooLargeException e) {
+            sendResponse(exchange, 413, "Payload Too Large");
+            return false;
+        }
+
+        if (response instanceof CompletionStage<?> stage) {
+            completeAsync(exchange, stage, handler.timeout(), timer);
+            return true;
+        }
+        return finishRequest(exchange, response, timer);
+    }
+
+    private static boolean finishRequest(HttpExchange exchange, Object response, RequestTimer timer) throws IOException {
         response = runPostInterceptors(response, exchange);
+        timer.handled();
+        return handleResponse(exchange, response, timer);
+    }
+
+    /**
+     * Finishes the exchange once {@code stage} completes. Completions are handed to a virtual
+     * thread so that neither the thread completing the stage nor the timeout scheduler does the
+     * response I/O. Backends that cannot finish the exchange later keep the dispatching thread
+     * waiting instead.
+     */
+    private static void completeAsync(HttpExchange exchange, CompletionStage<?> stage, Duration timeout,
+                                      RequestTimer timer) {
+        boolean detached = !(exchange instanceof AsyncExchange async) || async.startAsync();
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            if (error != null) result.completeExceptionally(error);
+            else result.complete(value);
+        });
+        if (timeout != null) {
+            result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        CompletableFuture<Void> done = result.handleAsync((value, error) -> {
+            boolean streaming = false;
+            try {
+                if (error == null) {
+                    streaming = finishRequest(exchange, value, timer);
+                } else {
+                    failAsync(exchange, stage, error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            } catch (IOException | RuntimeException e) {
+                failDetached(exchange, e);
+            } finally {
+                if (!streaming) timer.finish(exchange);
+            }
+            return null;
+        }, AsyncCompletions.EXECUTOR);
+        if (!detached) done.join();
+    }
+
+    private static void failAsync(HttpExchange exchange, CompletionStage<?> stage, Throwable cause) throws IOException {
+        switch (cause) {
+            case TimeoutException _ -> {
+                if (stage instanceof Future<?> future) future.cancel(true);
+                sendResponse(exchange, 503, "Service Unavailable");
+            }
+            case PayloadTooLargeException _ -> sendResponse(exchange, 413, "Payload Too Large");
+            default -> {
+                System.err.println("Async handler for " + exchange.getRequestURI().getPath() + " failed: " + cause);
+                sendResponse(exchange, 500, "Internal Server Error");
+            }
+        }
+    }
+
+    private static void handleUnregisteredMethod(HttpExchange exchange, HttpMethod method, RouteMatch match)
+            throws IOException {
+        exchange.getResponseHeaders().set("Allow", match.allow());
+
+        if (method == HttpMethod.OPTIONS) {
+            sendEmptyResponse(exchange, 204);
+        } else {
+            sendResponse(exchange, 405, "Method Not Allowed");
+        }
+    }
 
-        handleResponse(exchange, response);
+    private static void sendEmptyResponse(HttpExchange exchange, int statusCode) throws IOException {
+        exchange.sendResponseHeaders(statusCode, -1);
+        exchange.close();
     }
 
     private static boolean runPreInterceptors(HttpExchange exchange) {
@@ -141,52 +313,98 @@ public class Endpoint {
         return response;
     }
 
-    private static void handleResponse(HttpExchange exchange, Object response) throws IOException {
+    /**
+     * @return {@code true} if the response is streamed from another thread
+     */
+    private static boolean handleResponse(HttpExchange exchange, Object response, RequestTimer timer) throws IOException {
         switch (response) {
             case null -> sendResponse(exchange, 404, "Not Found");
             case Handled _ -> { }
-            case Path path -> FileUtils.sendStaticFileResponse(exchange, path);
-            case SseResponse sse -> sse(exchange, 200, sse);
-            case StreamingResponse stream -> stream(exchange, 200, stream);
-            default -> sendJsonResponse(exchange, 200, response);
+            case Path path -> FileUtils.sendStaticFile(exchange, path, StaticAssets.CACHE);
+            case SseResponse sse -> { return streamDetached(exchange, timer, () -> sse(exchange, 200, sse)); }
+            case StreamingResponse stream -> { return streamDetached(exchange, timer, () -> stream(exchange, 200, stream)); }
+            default -> sendJsonResponse(exchange, 200, response, timer);
         }
+        return false;
     }
 
-    private static Object processRequest(HttpExchange exchange, EndpointHandler handler, Matcher matcher) {
-        Map<String, String> pathVariables = extractPathVariables(matcher);
-        Map<String, String> queryParams = QueryParameterUtil.parseQueryParameters(exchange.getRequestURI());
-
-        CustomRequest customRequest = FormDataExtractor.extractFormData(exchange);
-        Map<String, DiskFileItem> uploadedFiles = customRequest.files();
-        Map<String, String> formFields = customRequest.formFields();
-
-        Request request = new Request(exchange, pathVariables, queryParams, uploadedFiles, formFields);
+    /**
+     * Runs a streamed response on a virtual thread when the backend would otherwise hold one of
+     * its own threads for as long as the stream stays open.
+     */
+    private static boolean streamDetached(HttpExchange exchange, RequestTimer timer, ResponseTask task) throws IOException {
+        if (!(exchange instanceof AsyncExchange async) || Thread.currentThread().isVirtual() || !async.startAsync()) {
+            task.run();
+            return false;
+        }
 
-        return handler.callback().apply(request);
+        AsyncCompletions.EXECUTOR.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                failDetached(exchange, e);
+            } finally {
+                timer.finish(exchange);
+            }
+        });
+        return true;
     }
 
-    private static Map<String, String> extractPathVariables(java.util.regex.Matcher matcher) {
-        Map<String, String> pathVariables = new HashMap<>();
-        for (int i = 1; i <= matcher.groupCount(); i++) {
-            pathVariables.put("param" + (i - 1), matcher.group(i));
+    /**
+     * Ends a response that failed off the dispatching thread, where no server is there to catch
+     * the exception. Once headers are out, the connection is dropped instead of closing the
+     * exchange, which would end a chunked body as if it were complete: async exchanges abort
+     * themselves, and others are given a response stream that fails to close, which the servers
+     * answer by closing the connection.
+     */
+    private static void failDetached(HttpExchange exchange, Exception cause) {
+        if (exchange.getResponseCode() == -1) {
+            exchange.close();
+        } else if (exchange instanceof AsyncExchange async) {
+            async.abort(cause);
+        } else {
+            exchange.setStreams(null, new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Response aborted");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    throw new IOException("Response aborted");
+                }
+            });
+            exchange.close();
         }
-        return pathVariables;
     }
 
-    private static MatchedEndpoint findMatchingEndpoint(String path) {
-        for (EndpointHandler handler : endpoints.values()) {
-            Matcher matcher = handler.pattern().matcher(path);
-            if (matcher.matches()) {
-                return new MatchedEndpoint(handler, matcher);
-            }
-        }
-        return null;
+    private static Object processRequest(HttpExchange exchange, EndpointHandler handler, String[] pathValues) {
+        Request request = new Request(exchange, pathValues);
+        return handler.callback().apply(request);
+    }
+
+    private static RouteMatch findMatchingEndpoint(String path) {
+        return routes.match(path);
     }
 
     public static void dispatch(HttpExchange exchange) throws java.io.IOException {
         handleExchange(exchange);
     }
 
-    private record MatchedEndpoint(EndpointHandler handler, Matcher matcher) {
+    @FunctionalInterface
+    private interface ResponseTask {
+        void run() throws IOException;
+    }
+
+    private static final class AsyncCompletions {
+        static final Executor EXECUTOR = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("racore-async-", 0).factory());
+    }
+
+    private static final class StaticAssets {
+        static final StaticAssetCache CACHE = new StaticAssetCache(
+                Paths.get(STATIC_DIRECTORY),
+                RaConfig.getStaticCacheMaxBytes(),
+                RaConfig.getStaticCacheMaxEntryBytes());
     }
 }
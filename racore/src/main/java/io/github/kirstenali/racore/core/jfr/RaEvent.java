@@ -0,0 +1,38 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the framework's JDK Flight Recorder events.
+ * <p>
+ * Events cost a flag check unless a recording enables them, e.g. with
+ * {@code jcmd <pid> JFR.start}. Enabled events are committed when they last at least the
+ * recording's own threshold and {@code jfr.<event>.threshold-ms}.
+ * </p>
+ */
+@Category("RaCore")
+@StackTrace(false)
+public abstract class RaEvent extends Event {
+    private transient long startNanos;
+
+    public final void start() {
+        if (isEnabled()) {
+            startNanos = System.nanoTime();
+            begin();
+        }
+    }
+
+    /**
+     * Ends the event. Returns {@code true} if it should be recorded, in which case the caller
+     * fills in its fields and calls {@link #commit()}.
+     */
+    public final boolean stop() {
+        if (startNanos == 0) return false;
+        end();
+        return shouldCommit() && System.nanoTime() - startNanos >= thresholdNanos();
+    }
+
+    abstract long thresholdNanos();
+}
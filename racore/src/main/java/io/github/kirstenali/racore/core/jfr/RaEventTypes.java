@@ -0,0 +1,17 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * Types of the framework's JFR events. Checking {@link EventType#isEnabled()} before creating
+ * an event keeps requests from allocating events no recording has asked for.
+ */
+public final class RaEventTypes {
+    public static final EventType REQUEST = EventType.getEventType(RaRequestEvent.class);
+    public static final EventType ROUTING = EventType.getEventType(RaRoutingEvent.class);
+    public static final EventType SERIALIZATION = EventType.getEventType(RaSerializationEvent.class);
+    public static final EventType SESSION_LOAD = EventType.getEventType(RaSessionLoadEvent.class);
+    public static final EventType MULTIPART_PARSE = EventType.getEventType(RaMultipartParseEvent.class);
+
+    private RaEventTypes() {}
+}
@@ -0,0 +1,29 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import io.github.kirstenali.racore.config.RaConfig;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.kirstenali.racore.MultipartParse")
+@Label("Multipart Parse")
+@Description("Parsing a multipart request body into form fields and files")
+public final class RaMultipartParseEvent extends RaEvent {
+    private static final long THRESHOLD = RaConfig.getJfrThreshold("multipart").toNanos();
+
+    @Label("Content Length")
+    @DataAmount
+    public long contentLength;
+
+    @Label("Form Fields")
+    public int fields;
+
+    @Label("Files")
+    public int files;
+
+    @Override
+    long thresholdNanos() {
+        return THRESHOLD;
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import io.github.kirstenali.racore.config.RaConfig;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.kirstenali.racore.Request")
+@Label("Request")
+@Description("An HTTP request, from dispatch until its response is finished")
+public final class RaRequestEvent extends RaEvent {
+    private static final long THRESHOLD = RaConfig.getJfrThreshold("request").toNanos();
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Status")
+    public int status;
+
+    @Override
+    long thresholdNanos() {
+        return THRESHOLD;
+    }
+}
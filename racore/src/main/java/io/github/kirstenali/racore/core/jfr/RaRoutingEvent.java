@@ -0,0 +1,24 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import io.github.kirstenali.racore.config.RaConfig;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.kirstenali.racore.Routing")
+@Label("Routing")
+@Description("Pre-interceptors and the route lookup of a request that matched a handler")
+public final class RaRoutingEvent extends RaEvent {
+    private static final long THRESHOLD = RaConfig.getJfrThreshold("routing").toNanos();
+
+    @Label("Method")
+    public String method;
+
+    @Label("Route")
+    public String route;
+
+    @Override
+    long thresholdNanos() {
+        return THRESHOLD;
+    }
+}
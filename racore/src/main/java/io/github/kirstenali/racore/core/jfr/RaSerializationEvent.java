@@ -0,0 +1,24 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import io.github.kirstenali.racore.config.RaConfig;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.kirstenali.racore.Serialization")
+@Label("JSON Serialization")
+@Description("Serializing a handler's result to JSON")
+public final class RaSerializationEvent extends RaEvent {
+    private static final long THRESHOLD = RaConfig.getJfrThreshold("serialization").toNanos();
+
+    @Label("Route")
+    public String route;
+
+    @Label("Type")
+    public Class<?> type;
+
+    @Override
+    long thresholdNanos() {
+        return THRESHOLD;
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.kirstenali.racore.core.jfr;
+
+import io.github.kirstenali.racore.config.RaConfig;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.kirstenali.racore.SessionLoad")
+@Label("Session Load")
+@Description("Looking up the session named by a request's session cookie")
+public final class RaSessionLoadEvent extends RaEvent {
+    private static final long THRESHOLD = RaConfig.getJfrThreshold("session-load").toNanos();
+
+    @Label("Stateless")
+    @Description("The session was decoded from the cookie rather than read from a store")
+    public boolean stateless;
+
+    @Label("Found")
+    public boolean found;
+
+    @Override
+    long thresholdNanos() {
+        return THRESHOLD;
+    }
+}
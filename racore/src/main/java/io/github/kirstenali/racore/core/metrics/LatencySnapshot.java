@@ -0,0 +1,42 @@
+package io.github.kirstenali.racore.core.metrics;
+
+/**
+ * Point-in-time copy of a {@link LatencyHistogram}.
+ *
+ * @param counts   requests per bucket; bucket {@code i} holds latencies up to {@link #upperBound(int)}
+ * @param count    requests recorded
+ * @param sumNanos total latency of all recorded requests
+ */
+public record LatencySnapshot(long[] counts, long count, long sumNanos) {
+
+    /**
+     * Upper bound of bucket {@code i} in nanoseconds, or {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long upperBound(int i) {
+        return i < LatencyHistogram.BOUNDS.length ? LatencyHistogram.BOUNDS[i] : Long.MAX_VALUE;
+    }
+
+    public long meanNanos() {
+        return count == 0 ? 0 : sumNanos / count;
+    }
+
+    /**
+     * Estimates the latency below which {@code quantile} of requests fall, interpolating within
+     * the bucket it lands in. Values beyond the largest bound are reported as that bound.
+     */
+    public long percentileNanos(double quantile) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0 || seen + counts[i] < rank) {
+                seen += counts[i];
+                continue;
+            }
+            long lower = i == 0 ? 0 : upperBound(i - 1);
+            if (i == LatencyHistogram.BOUNDS.length) return lower;
+            return lower + (upperBound(i) - lower) * Math.max(rank - seen, 1) / counts[i];
+        }
+        return upperBound(LatencyHistogram.BOUNDS.length - 1);
+    }
+}
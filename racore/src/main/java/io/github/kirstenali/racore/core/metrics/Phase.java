@@ -0,0 +1,21 @@
+package io.github.kirstenali.racore.core.metrics;
+
+import java.util.Locale;
+
+/**
+ * Parts of a request whose latency is recorded separately.
+ */
+public enum Phase {
+    /** Pre-interceptors and the route lookup. */
+    ROUTING,
+    /** The handler and post-interceptors, including the wait for an asynchronous result. */
+    HANDLER,
+    /** Serializing a JSON response; bodies that outgrow the response buffer are written as they are serialized. */
+    SERIALIZATION,
+    /** Sending the response, or everything after the handler for responses that are not serialized. */
+    WRITE,
+    /** The whole request. */
+    TOTAL;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+}
@@ -0,0 +1,88 @@
+package io.github.kirstenali.racore.core.metrics;
+
+import java.util.List;
+
+/**
+ * Renders request metrics in the Prometheus text exposition format, version 0.0.4.
+ */
+final class PrometheusFormat {
+    private PrometheusFormat() {}
+
+    static String format(long inFlight, List<RouteMetrics> routes) {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "racore_requests_in_flight", "gauge", "Requests currently being handled.");
+        out.append("racore_requests_in_flight ").append(inFlight).append('\n');
+
+        header(out, "racore_route_requests_in_flight", "gauge", "Requests currently being handled, by route.");
+        for (RouteMetrics route : routes) {
+            out.append("racore_route_requests_in_flight");
+            labels(out, route).append("} ").append(route.inFlight()).append('\n');
+        }
+
+        header(out, "racore_requests_total", "counter", "Completed requests by route and status.");
+        for (RouteMetrics route : routes) {
+            route.statuses().forEach((status, count) -> {
+                out.append("racore_requests_total");
+                labels(out, route).append(",status=\"").append(status).append("\"} ").append(count).append('\n');
+            });
+        }
+
+        header(out, "racore_request_duration_seconds", "histogram", "Request latency by route and phase.");
+        for (RouteMetrics route : routes) {
+            route.latencies().forEach((phase, latency) -> {
+                if (latency.count() > 0) histogram(out, route, phase, latency);
+            });
+        }
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, RouteMetrics route, Phase phase, LatencySnapshot latency) {
+        long cumulative = 0;
+        long[] counts = latency.counts();
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            long bound = LatencySnapshot.upperBound(i);
+            out.append("racore_request_duration_seconds_bucket");
+            labels(out, route).append(",phase=\"").append(phase.label).append("\",le=\"")
+                    .append(bound == Long.MAX_VALUE ? "+Inf" : seconds(bound))
+                    .append("\"} ").append(cumulative).append('\n');
+        }
+        out.append("racore_request_duration_seconds_sum");
+        labels(out, route).append(",phase=\"").append(phase.label).append("\"} ")
+                .append(seconds(latency.sumNanos())).append('\n');
+        out.append("racore_request_duration_seconds_count");
+        labels(out, route).append(",phase=\"").append(phase.label).append("\"} ")
+                .append(latency.count()).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /** Appends the opening brace and route labels; callers add further labels and close it. */
+    private static StringBuilder labels(StringBuilder out, RouteMetrics route) {
+        out.append("{method=\"");
+        escape(out, route.method());
+        out.append("\",route=\"");
+        escape(out, route.route());
+        return out.append('"');
+    }
+
+    private static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
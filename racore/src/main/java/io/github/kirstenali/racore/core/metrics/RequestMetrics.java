@@ -0,0 +1,68 @@
+package io.github.kirstenali.racore.core.metrics;
+
+import io.github.kirstenali.racore.config.RaConfig;
+import io.github.kirstenali.racore.handlers.EndpointHandler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route request counters and latency histograms, recorded by the framework for every
+ * request unless {@code metrics.enabled} is {@code false}.
+ * <p>
+ * Routes are identified by method and template, so {@code /users/1} and {@code /users/2} both
+ * count towards {@code /users/{id}}. Requests that reach no handler (rejected by an interceptor,
+ * unknown path, unsupported method) are counted under {@value #UNROUTED}.
+ * </p>
+ */
+public final class RequestMetrics {
+    public static final String UNROUTED = "unrouted";
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final boolean ENABLED = RaConfig.isMetricsEnabled();
+    private static final Map<EndpointHandler, RouteStats> routes = new ConcurrentHashMap<>();
+    static final RouteStats UNROUTED_STATS = new RouteStats("*", UNROUTED);
+    static final LongAdder IN_FLIGHT = new LongAdder();
+
+    private RequestMetrics() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /** Starts timing a request; the returned timer must be finished exactly once. */
+    public static RequestTimer start() {
+        return RequestTimer.start(ENABLED);
+    }
+
+    static RouteStats stats(EndpointHandler endpoint) {
+        RouteStats stats = routes.get(endpoint);
+        if (stats != null) return stats;
+        return routes.computeIfAbsent(endpoint, e -> new RouteStats(e.method().name(), e.path()));
+    }
+
+    /** Requests currently being handled across all routes. */
+    public static long inFlight() {
+        return Math.max(0, IN_FLIGHT.sum());
+    }
+
+    /** Metrics of every route that has received a request, sorted by route and method. */
+    public static List<RouteMetrics> snapshot() {
+        List<RouteMetrics> snapshot = new ArrayList<>();
+        routes.values().forEach(stats -> snapshot.add(stats.snapshot()));
+        snapshot.sort(Comparator.comparing(RouteMetrics::route).thenComparing(RouteMetrics::method));
+
+        RouteMetrics unrouted = UNROUTED_STATS.snapshot();
+        if (unrouted.requests() > 0 || unrouted.inFlight() > 0) snapshot.add(unrouted);
+        return snapshot;
+    }
+
+    /** All metrics in the Prometheus text exposition format. */
+    public static String toPrometheus() {
+        return PrometheusFormat.format(inFlight(), snapshot());
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.kirstenali.racore.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.kirstenali.racore.core.jfr.RaEventTypes;
+import io.github.kirstenali.racore.core.jfr.RaRequestEvent;
+import io.github.kirstenali.racore.core.jfr.RaRoutingEvent;
+import io.github.kirstenali.racore.core.jfr.RaSerializationEvent;
+import io.github.kirstenali.racore.handlers.EndpointHandler;
+
+/**
+ * Times one request through its phases, for {@link RequestMetrics} and for the request, routing
+ * and serialization JFR events. Each mark closes the current phase; phases a request never
+ * reaches are not recorded. Events are only created while a recording enables them.
+ * A timer is used by one thread at a time.
+ */
+public final class RequestTimer {
+    private static final RequestTimer DISABLED = new RequestTimer(false, null, null);
+
+    private final boolean metrics;
+    private final long start;
+    private long mark;
+    private EndpointHandler endpoint;
+    private RouteStats route;
+    private long routing = -1;
+    private long handler = -1;
+    private long serialization = -1;
+
+    private final RaRequestEvent requestEvent;  // null unless enabled
+    private final RaRoutingEvent routingEvent;  // null unless enabled
+    private RaSerializationEvent serializationEvent;
+
+    private RequestTimer(boolean metrics, RaRequestEvent requestEvent, RaRoutingEvent routingEvent) {
+        this.metrics = metrics;
+        this.requestEvent = requestEvent;
+        this.routingEvent = routingEvent;
+        this.start = System.nanoTime();
+        this.mark = start;
+        if (requestEvent != null) requestEvent.start();
+        if (routingEvent != null) routingEvent.start();
+    }
+
+    static RequestTimer start(boolean metrics) {
+        boolean request = RaEventTypes.REQUEST.isEnabled();
+        boolean routing = RaEventTypes.ROUTING.isEnabled();
+        if (!metrics && !request && !routing && !RaEventTypes.SERIALIZATION.isEnabled()) {
+            return DISABLED;
+        }
+        if (metrics) RequestMetrics.IN_FLIGHT.increment();
+        return new RequestTimer(metrics, request ? new RaRequestEvent() : null, routing ? new RaRoutingEvent() : null);
+    }
+
+    /** Ends the routing phase; the request is counted against {@code endpoint} from now on. */
+    public void routed(EndpointHandler endpoint) {
+        if (this == DISABLED) return;
+        this.endpoint = endpoint;
+        if (metrics) {
+            route = RequestMetrics.stats(endpoint);
+            route.inFlight.increment();
+        }
+        routing = lap();
+
+        if (routingEvent != null && routingEvent.stop()) {
+            routingEvent.method = endpoint.method().name();
+            routingEvent.route = endpoint.path();
+            routingEvent.commit();
+        }
+    }
+
+    /** Ends the handler phase. */
+    public void handled() {
+        if (this == DISABLED) return;
+        handler = lap();
+
+        if (RaEventTypes.SERIALIZATION.isEnabled()) {
+            serializationEvent = new RaSerializationEvent();
+            serializationEvent.start();
+        }
+    }
+
+    /** Ends the serialization of a response of the given type. */
+    public void serialized(Class<?> type) {
+        if (this == DISABLED) return;
+        serialization = lap();
+
+        if (serializationEvent != null && serializationEvent.stop()) {
+            serializationEvent.route = endpoint != null ? endpoint.path() : null;
+            serializationEvent.type = type;
+            serializationEvent.commit();
+        }
+    }
+
+    /**
+     * Records the request with the status sent on {@code exchange}, or 500 if none was sent.
+     */
+    public void finish(HttpExchange exchange) {
+        if (this == DISABLED) return;
+        long now = System.nanoTime();
+        int sent = exchange.getResponseCode();
+        int status = sent > 0 ? sent : 500;
+
+        if (metrics) {
+            RouteStats stats = route != null ? route : RequestMetrics.UNROUTED_STATS;
+            stats.recordStatus(status);
+            if (routing >= 0) stats.recordLatency(Phase.ROUTING, routing);
+            if (handler >= 0) stats.recordLatency(Phase.HANDLER, handler);
+            if (serialization >= 0) stats.recordLatency(Phase.SERIALIZATION, serialization);
+            stats.recordLatency(Phase.WRITE, now - mark);
+            stats.recordLatency(Phase.TOTAL, now - start);
+
+            if (route != null) route.inFlight.decrement();
+            RequestMetrics.IN_FLIGHT.decrement();
+        }
+
+        if (requestEvent != null && requestEvent.stop()) {
+            requestEvent.method = exchange.getRequestMethod();
+            requestEvent.path = exchange.getRequestURI().getPath();
+            requestEvent.route = endpoint != null ? endpoint.path() : RequestMetrics.UNROUTED;
+            requestEvent.status = status;
+            requestEvent.commit();
+        }
+    }
+
+    private long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        mark = now;
+        return elapsed;
+    }
+}
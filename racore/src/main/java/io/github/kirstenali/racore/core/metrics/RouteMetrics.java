@@ -0,0 +1,22 @@
+package io.github.kirstenali.racore.core.metrics;
+
+import java.util.Map;
+
+/**
+ * Point-in-time metrics of one route.
+ *
+ * @param method    the HTTP method, or {@code "*"} for requests that reached no handler
+ * @param route     the route template as registered, or {@value RequestMetrics#UNROUTED} for
+ *                  requests that reached no handler
+ * @param inFlight  requests currently being handled
+ * @param statuses  completed requests by response status
+ * @param latencies latency histograms by phase
+ */
+public record RouteMetrics(String method, String route, long inFlight,
+                           Map<Integer, Long> statuses, Map<Phase, LatencySnapshot> latencies) {
+
+    /** Completed requests. */
+    public long requests() {
+        return latencies.get(Phase.TOTAL).count();
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.kirstenali.racore.core.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one route.
+ */
+final class RouteStats {
+    private static final Phase[] PHASES = Phase.values();
+
+    final String method;
+    final String route;
+    final LongAdder inFlight = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[PHASES.length];
+
+    RouteStats(String method, String route) {
+        this.method = method;
+        this.route = route;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordStatus(int status) {
+        LongAdder counter = statuses.get(status);
+        if (counter == null) counter = statuses.computeIfAbsent(status, _ -> new LongAdder());
+        counter.increment();
+    }
+
+    void recordLatency(Phase phase, long nanos) {
+        latencies[phase.ordinal()].record(nanos);
+    }
+
+    RouteMetrics snapshot() {
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, counter) -> statusCounts.put(status, counter.sum()));
+
+        Map<Phase, LatencySnapshot> phases = new EnumMap<>(Phase.class);
+        for (Phase phase : PHASES) {
+            phases.put(phase, latencies[phase.ordinal()].snapshot());
+        }
+        return new RouteMetrics(method, route, Math.max(0, inFlight.sum()), statusCounts, phases);
+    }
+}
@@ -25,7 +25,7 @@ public class HttpExchangeRequestContext implements RequestContext {
     @Override
     public long getContentLength() {
         String length = exchange.getRequestHeaders().getFirst("Content-Length");
-        return length != null ? Integer.parseInt(length) : -1;
+        return length != null ? Long.parseLong(length.trim()) : -1;
     }
 
     @Override
@@ -0,0 +1,18 @@
+package io.github.kirstenali.racore.core.requests;
+
+import org.apache.commons.fileupload2.core.FileItemInput;
+
+import java.io.IOException;
+
+/**
+ * Receives the parts of a multipart request one at a time; see {@link Request#streamParts(PartConsumer)}.
+ */
+@FunctionalInterface
+public interface PartConsumer {
+
+    /**
+     * Handles one part. Its content can be read from {@code part.getInputStream()} until this
+     * method returns; whatever is left unread is skipped.
+     */
+    void accept(FileItemInput part) throws IOException;
+}
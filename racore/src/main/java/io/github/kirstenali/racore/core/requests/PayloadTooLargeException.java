@@ -0,0 +1,20 @@
+package io.github.kirstenali.racore.core.requests;
+
+/**
+ * Thrown when a request body exceeds a configured size limit, such as {@code server.max-body-size}.
+ * The framework answers it with {@code 413 Payload Too Large}.
+ */
+public class PayloadTooLargeException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long limit;
+
+    public PayloadTooLargeException(long limit) {
+        super("Request body exceeds " + limit + " bytes");
+        this.limit = limit;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
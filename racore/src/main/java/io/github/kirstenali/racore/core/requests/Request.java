@@ -1,28 +1,40 @@
 package io.github.kirstenali.racore.core.requests;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.sun.net.httpserver.HttpExchange;
+import io.github.kirstenali.racore.config.RaConfig;
+import io.github.kirstenali.racore.core.utils.FormDataExtractor;
+import io.github.kirstenali.racore.core.utils.QueryParameterUtil;
+import io.github.kirstenali.racore.core.utils.RaJson;
 import org.apache.commons.fileupload2.core.DiskFileItem;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The request passed to endpoint callbacks.
+ * <p>
+ * Query parameters, path variables, form fields and uploaded files are parsed on first
+ * access and cached for the lifetime of the request, so handlers only pay for what they use.
+ * </p>
+ */
 public class Request {
     private final HttpExchange exchange;
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, String> queryParams;
-    private final Map<String, String> pathVariables;
-    private final Map<String, DiskFileItem> uploadedFiles;
-    private final Map<String, String> formFields;
-
-    public Request(HttpExchange exchange, Map<String, String> pathVariables, Map<String, String> queryParams,
-                   Map<String, DiskFileItem> uploadedFiles, Map<String, String> formFields) {
+    private static final long MAX_BODY_SIZE = RaConfig.getMaxBodySize();
+    private static final long MAX_PART_SIZE = RaConfig.getMultipartMaxPartSize();
+    private static final long MAX_MULTIPART_SIZE = RaConfig.getMultipartMaxSize();
+    private final String[] pathValues;
+
+    private Map<String, String> queryParams;
+    private Map<String, List<String>> multiValuedQueryParams;
+    private Map<String, String> pathVariables;
+    private CustomRequest formData;
+
+    public Request(HttpExchange exchange, String[] pathValues) {
         this.exchange = exchange;
-        this.pathVariables = pathVariables;
-        this.queryParams = queryParams;
-        this.uploadedFiles = uploadedFiles;
-        this.formFields = formFields;
+        this.pathValues = pathValues;
     }
 
     public String getPath() {
@@ -30,19 +42,37 @@ public class Request {
     }
 
     public String getParam(String key) {
-        return queryParams.get(key);
+        return getQueryParams().get(key);
+    }
+
+    /**
+     * Returns every value of a repeated query parameter, e.g. {@code ?tag=a&tag=b}.
+     *
+     * @param key the parameter name
+     * @return the values in request order, or an empty list if the parameter is absent
+     */
+    public List<String> getParams(String key) {
+        if (multiValuedQueryParams == null) {
+            multiValuedQueryParams = QueryParameterUtil.parseMultiValued(exchange.getRequestURI().getRawQuery());
+        }
+        return multiValuedQueryParams.getOrDefault(key, Collections.emptyList());
     }
 
     public String getPathVariable(String key) {
-        return pathVariables.get(key);
+        return getPathVariables().get(key);
     }
 
+    /**
+     * Binds the request body to {@code type}. JSON bodies are read straight from the request
+     * stream and may not exceed {@code server.max-body-size}; otherwise a
+     * {@link PayloadTooLargeException} is thrown and the client receives a 413.
+     */
     public <T> T getBodyAs(Class<T> type) {
         try {
-            if (isFormData()) {
-                return parseFormDataAsObject(type);
-            } else if (isJsonContentType()) {
+            if (isJsonContentType()) {
                 return parseJsonBodyAsObject(type);
+            } else if (isFormData()) {
+                return parseFormDataAsObject(type);
             }
             throw new IllegalStateException("Unsupported content type: " + getContentType());
         } catch (IOException e) {
@@ -50,13 +80,42 @@ public class Request {
         }
     }
 
+    /**
+     * Streams a JSON array body element by element, binding each element to {@code type}
+     * as it is consumed. Only one element is held in memory at a time, so the body is not
+     * subject to {@code server.max-body-size}. Close the returned stream when done,
+     * e.g. with try-with-resources.
+     */
+    public <T> Stream<T> getBodyAsStream(Class<T> type) {
+        if (!isJsonContentType()) {
+            throw new IllegalStateException("Unsupported content type: " + getContentType());
+        }
+        try {
+            MappingIterator<T> elements = RaJson.reader(type).readValues(exchange.getRequestBody());
+            Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(elements, Spliterator.ORDERED);
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    elements.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse request body as " + type.getSimpleName(), e);
+        }
+    }
+
     private boolean isFormData() {
-        return !formFields.isEmpty();
+        return !getFormFields().isEmpty();
     }
 
     private boolean isJsonContentType() {
         String contentType = getContentType();
-        return "application/json".equalsIgnoreCase(contentType);
+        if (contentType == null) return false;
+
+        int end = contentType.indexOf(';');
+        String mediaType = (end < 0 ? contentType : contentType.substring(0, end)).trim();
+        return "application/json".equalsIgnoreCase(mediaType);
     }
 
     private String getContentType() {
@@ -64,31 +123,67 @@ public class Request {
     }
 
     private <T> T parseFormDataAsObject(Class<T> type) {
-        return objectMapper.convertValue(formFields, type);
+        return RaJson.mapper().convertValue(getFormFields(), type);
     }
 
     private <T> T parseJsonBodyAsObject(Class<T> type) throws IOException {
-        String body = readRequestBody();
-        return objectMapper.readValue(body, type);
+        LimitedInputStream body = openLimitedBody();
+        try (body) {
+            return RaJson.reader(type).readValue(body);
+        } catch (IOException e) {
+            // Jackson wraps exceptions thrown mid-parse, so check the stream itself
+            if (body.isExceeded()) throw new PayloadTooLargeException(MAX_BODY_SIZE);
+            throw e;
+        }
     }
 
-    private String readRequestBody() throws IOException {
-        StringBuilder requestBody = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                requestBody.append(line).append("\n");
+    private LimitedInputStream openLimitedBody() {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null) {
+            try {
+                if (Long.parseLong(length.trim()) > MAX_BODY_SIZE) {
+                    throw new PayloadTooLargeException(MAX_BODY_SIZE);
+                }
+            } catch (NumberFormatException ignored) {
+                // fall through and let the stream limit apply
             }
         }
-        return requestBody.toString().trim();
+        return new LimitedInputStream(exchange.getRequestBody(), MAX_BODY_SIZE);
+    }
+
+    /**
+     * Streams a multipart body to {@code consumer} one part at a time, instead of first storing
+     * it as form fields and files, so each part can be piped straight to its destination.
+     * A part larger than {@code multipart.max-part-size} or a body larger than
+     * {@code multipart.max-size} throws a {@link PayloadTooLargeException} as soon as the limit
+     * is crossed, and the client receives a 413.
+     * <p>
+     * The body can only be read once: after this, form fields and uploaded files are empty.
+     * Requests that are not multipart are ignored.
+     * </p>
+     */
+    public void streamParts(PartConsumer consumer) {
+        streamParts(MAX_PART_SIZE, MAX_MULTIPART_SIZE, consumer);
+    }
+
+    /**
+     * Streams a multipart body as {@link #streamParts(PartConsumer)} does, with the given limits
+     * in bytes; {@code -1} means no limit.
+     */
+    public void streamParts(long maxPartSize, long maxSize, PartConsumer consumer) {
+        if (formData != null) {
+            throw new IllegalStateException("Request body has already been read");
+        }
+        formData = new CustomRequest(Collections.emptyMap(), Collections.emptyMap());
+        FormDataExtractor.streamParts(exchange, maxPartSize, maxSize, consumer);
     }
 
     public DiskFileItem getUploadedFile(String fileName) {
-        return uploadedFiles.get(fileName);
+        return getUploadedFiles().get(fileName);
     }
 
     public String getFormField(String fieldName) {
-        return formFields.get(fieldName);
+        return getFormFields().get(fieldName);
     }
 
     public HttpExchange getExchange() {
@@ -96,18 +191,41 @@ public class Request {
     }
 
     public Map<String, String> getQueryParams() {
+        if (queryParams == null) {
+            queryParams = QueryParameterUtil.parseQueryParameters(exchange.getRequestURI());
+        }
         return queryParams;
     }
 
     public Map<String, String> getPathVariables() {
+        if (pathVariables == null) {
+            pathVariables = toPathVariables(pathValues);
+        }
         return pathVariables;
     }
 
     public Map<String, DiskFileItem> getUploadedFiles() {
-        return uploadedFiles;
+        return getFormData().files();
     }
 
     public Map<String, String> getFormFields() {
-        return formFields;
+        return getFormData().formFields();
+    }
+
+    private CustomRequest getFormData() {
+        if (formData == null) {
+            formData = FormDataExtractor.extractFormData(exchange);
+        }
+        return formData;
+    }
+
+    private static Map<String, String> toPathVariables(String[] pathValues) {
+        if (pathValues.length == 0) return Collections.emptyMap();
+
+        Map<String, String> pathVariables = new HashMap<>(pathValues.length * 2);
+        for (int i = 0; i < pathValues.length; i++) {
+            pathVariables.put("param" + i, pathValues[i]);
+        }
+        return pathVariables;
     }
 }
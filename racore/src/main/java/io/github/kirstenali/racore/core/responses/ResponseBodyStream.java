@@ -0,0 +1,110 @@
+package io.github.kirstenali.racore.core.responses;
+
+import com.sun.net.httpserver.HttpExchange;
+import io.github.kirstenali.racore.core.utils.CompressingOutputStream;
+import io.github.kirstenali.racore.core.utils.ContentEncoding;
+import io.github.kirstenali.racore.core.utils.ExchangeUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Collects a response body in a fixed buffer so small responses go out with an exact
+ * {@code Content-Length}. Once the buffer overflows, headers are sent for a chunked
+ * response and the rest of the body is written straight through.
+ * <p>
+ * If the client accepted a content coding and the body has reached the compression
+ * threshold by the time headers are sent, the body is compressed. Streamed responses
+ * commit on their first {@code flush()} so incremental output is never held back.
+ * </p>
+ */
+final class ResponseBodyStream extends OutputStream {
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final byte[] buffer;
+    private final ContentEncoding encoding;
+    private final int compressionThreshold;
+    private final boolean commitOnFlush;
+    private int count;
+    private OutputStream body;
+
+    ResponseBodyStream(HttpExchange exchange, int statusCode, byte[] buffer,
+                       ContentEncoding encoding, int compressionThreshold, boolean commitOnFlush) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.buffer = buffer;
+        this.encoding = encoding;
+        this.compressionThreshold = compressionThreshold;
+        this.commitOnFlush = commitOnFlush;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (body == null && count == buffer.length) commitChunked();
+        if (body != null) {
+            body.write(b);
+        } else {
+            buffer[count++] = (byte) b;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (body == null && count + len <= buffer.length) {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+        if (body == null) commitChunked();
+        body.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (body == null && commitOnFlush) commitChunked();
+        if (body != null) body.flush();
+    }
+
+    private void commitChunked() throws IOException {
+        boolean compress = encoding != null && count >= compressionThreshold;
+        if (compress) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+        }
+
+        OutputStream raw = ExchangeUtil.sendHeaders(exchange, statusCode, 0);
+        body = compress ? new CompressingOutputStream(raw, encoding) : raw;
+        body.write(buffer, 0, count);
+        count = 0;
+    }
+
+    /**
+     * Completes the response. Called only after the body was produced successfully, so a
+     * failure mid-write never commits a partial fixed-length body.
+     */
+    void finish() throws IOException {
+        if (body == null) {
+            if (encoding != null && count >= compressionThreshold) {
+                commitChunked();
+            } else {
+                body = ExchangeUtil.sendHeaders(exchange, statusCode, count == 0 ? -1 : count);
+                body.write(buffer, 0, count);
+            }
+        }
+        body.close();
+    }
+
+    /**
+     * Ends a response whose body failed part-way. Nothing is sent if headers are still pending.
+     * A committed body is left unterminated, since closing it would end a chunked body cleanly
+     * and pass the truncated response off as complete; the caller rethrows so that the server
+     * drops the connection.
+     */
+    void abort() {
+        if (body instanceof CompressingOutputStream compressing) compressing.discard();
+    }
+
+    @Override
+    public void close() {
+        // serializers close their target after writing; the response is completed by finish()
+    }
+}
@@ -1,20 +1,80 @@
 package io.github.kirstenali.racore.core.responses;
 
 import com.sun.net.httpserver.HttpExchange;
-import io.github.kirstenali.racore.core.utils.JsonUtils;
+import io.github.kirstenali.racore.config.RaConfig;
+import io.github.kirstenali.racore.core.metrics.RequestTimer;
+import io.github.kirstenali.racore.core.utils.BufferPool;
+import io.github.kirstenali.racore.core.utils.ContentEncoding;
+import io.github.kirstenali.racore.core.utils.ExchangeUtil;
+import io.github.kirstenali.racore.core.utils.RaJson;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
 
 public final class ResponseWriters {
+    private static final BufferPool bodyBuffers = new BufferPool(RaConfig.getJsonBufferSize(), 64);
+    private static final boolean COMPRESSION_ENABLED = RaConfig.isCompressionEnabled();
+    private static final int COMPRESSION_THRESHOLD = RaConfig.getCompressionThreshold();
+    private static final Set<ContentEncoding> ON_THE_FLY = EnumSet.of(ContentEncoding.GZIP, ContentEncoding.DEFLATE);
+
     private ResponseWriters() {}
 
+    /**
+     * Streams a response body produced by {@code body}.
+     * <p>
+     * When compression is enabled, output is buffered until the first {@code flush()} or until
+     * the buffer fills, then compressed if the client accepts gzip or deflate and the body has
+     * reached {@code compression.threshold}. Bodies that complete without a flush and fit the
+     * buffer are sent with a fixed {@code Content-Length}.
+     * </p>
+     */
     public static void stream(HttpExchange exchange, int statusCode, StreamingResponse body) throws IOException {
-        exchange.sendResponseHeaders(statusCode, 0);
-        try (var os = exchange.getResponseBody()) {
+        if (!COMPRESSION_ENABLED || ExchangeUtil.isHead(exchange)) {
+            streamUnbuffered(exchange, statusCode, body);
+            return;
+        }
+
+        ContentEncoding encoding = negotiateEncoding(exchange);
+        byte[] buffer = bodyBuffers.acquire();
+        ResponseBodyStream out = new ResponseBodyStream(exchange, statusCode, buffer, encoding, COMPRESSION_THRESHOLD, true);
+        try {
+            body.write(out);
+            out.finish();
+        } catch (Exception e) {
+            out.abort();
+            throw new IOException(e);
+        } finally {
+            bodyBuffers.release(buffer);
+        }
+    }
+
+    /**
+     * Sends the headers and streams {@code body} as it is written. A HEAD request gets the headers
+     * only: its body would be discarded, so a stream that runs until the client leaves would never end.
+     */
+    private static void streamUnbuffered(HttpExchange exchange, int statusCode, StreamingResponse body) throws IOException {
+        if (ExchangeUtil.isHead(exchange)) {
+            ExchangeUtil.sendHeaders(exchange, statusCode, 0).close();
+            return;
+        }
+        var os = ExchangeUtil.sendHeaders(exchange, statusCode, 0);
+        try {
             body.write(os);
         } catch (Exception e) {
+            // not closed: that would end the chunked body as if the stream had completed
             throw new IOException(e);
         }
+        os.close();
+    }
+
+    private static ContentEncoding negotiateEncoding(HttpExchange exchange) {
+        if (!COMPRESSION_ENABLED) return null;
+
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return ContentEncoding.negotiate(acceptEncoding, ON_THE_FLY);
     }
 
     public static void sse(HttpExchange exchange, int statusCode, StreamingResponse body) throws IOException {
@@ -23,15 +83,18 @@ public final class ResponseWriters {
         headers.set("Cache-Control", "no-cache");
         headers.set("X-Accel-Buffering", "no"); // helpful behind nginx; harmless otherwise
 
-        stream(exchange, statusCode, body);
+        // events must reach the client as they are written, so never buffer or compress them
+        streamUnbuffered(exchange, statusCode, body);
     }
 
     /**
      * Sends a JSON response using the provided {@code HttpExchange}.
      * <p>
-     * This method sets the {@code Content-Type} header to {@code application/json},
-     * serializes the {@code response} object to JSON, and then delegates to
-     * {@link #sendResponse(HttpExchange, int, String)}.
+     * This method sets the {@code Content-Type} header to {@code application/json} and
+     * serializes the {@code response} object as UTF-8 straight into a pooled buffer. Bodies
+     * that fit the buffer ({@code json.buffer-size}) are sent with a fixed {@code Content-Length};
+     * larger ones are streamed with chunked encoding as they are serialized. Bodies of at least
+     * {@code compression.threshold} bytes are gzip or deflate compressed when the client accepts it.
      * </p>
      * <p>
      * <strong>Note:</strong> Using this method directly implies you are manually
@@ -46,16 +109,41 @@ public final class ResponseWriters {
      * @throws IOException if an I/O error occurs while writing the response
      */
     public static void sendJsonResponse(HttpExchange exchange, int statusCode, Object response) throws IOException {
-        String jsonResponse = JsonUtils.toJson(response);
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        sendResponse(exchange, statusCode, jsonResponse);
+        sendJsonResponse(exchange, statusCode, response, null);
+    }
+
+    /**
+     * Sends a JSON response as {@link #sendJsonResponse(HttpExchange, int, Object)} does, marking
+     * the end of serialization on {@code timer} if one is given.
+     */
+    public static void sendJsonResponse(HttpExchange exchange, int statusCode, Object response,
+                                        RequestTimer timer) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+
+        ContentEncoding encoding = negotiateEncoding(exchange);
+        byte[] buffer = bodyBuffers.acquire();
+        ResponseBodyStream out = new ResponseBodyStream(exchange, statusCode, buffer, encoding, COMPRESSION_THRESHOLD, false);
+        try {
+            if (response == null) {
+                RaJson.mapper().writeValue(out, null);
+            } else {
+                RaJson.writer(response.getClass()).writeValue(out, response);
+            }
+            if (timer != null) timer.serialized(response == null ? null : response.getClass());
+            out.finish();
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        } finally {
+            bodyBuffers.release(buffer);
+        }
     }
 
     /**
      * Sends a plain text (or any custom format) response using the provided {@code HttpExchange}.
      * <p>
      * This method writes the given {@code response} string to the response body
-     * and then closes the output stream.
+     * encoded as UTF-8 and then closes the output stream.
      * </p>
      * <p>
      * <strong>Note:</strong> Using this method directly implies you are manually
@@ -70,9 +158,9 @@ public final class ResponseWriters {
      * @throws IOException if an I/O error occurs while writing the response
      */
     public static void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
-        try (var os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        try (var os = ExchangeUtil.sendHeaders(exchange, statusCode, bytes.length)) {
+            os.write(bytes);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package io.github.kirstenali.racore.core.routing;
+
+public enum HttpMethod {
+    GET, HEAD, POST, PUT, DELETE, PATCH, OPTIONS;
+
+    static final int COUNT = values().length;
+
+    /**
+     * Resolves a request method token without allocating.
+     *
+     * @param method the method as sent by the client, e.g. {@code "GET"}
+     * @return the matching constant, or {@code null} if the method is not supported
+     */
+    public static HttpMethod parse(String method) {
+        if (method == null) return null;
+        return switch (method) {
+            case "GET" -> GET;
+            case "HEAD" -> HEAD;
+            case "POST" -> POST;
+            case "PUT" -> PUT;
+            case "DELETE" -> DELETE;
+            case "PATCH" -> PATCH;
+            case "OPTIONS" -> OPTIONS;
+            default -> null;
+        };
+    }
+}
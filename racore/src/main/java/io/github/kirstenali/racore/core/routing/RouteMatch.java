@@ -0,0 +1,17 @@
+package io.github.kirstenali.racore.core.routing;
+
+import io.github.kirstenali.racore.handlers.EndpointHandler;
+
+/**
+ * Result of a successful {@link RouteTree} lookup.
+ *
+ * @param handlers   the handlers registered for the matched template, indexed by {@link HttpMethod#ordinal()}
+ * @param allow      the value of the {@code Allow} header for the matched template
+ * @param pathValues the values captured by each {@code {name}} segment, in template order
+ */
+public record RouteMatch(EndpointHandler[] handlers, String allow, String[] pathValues) {
+
+    public EndpointHandler handler(HttpMethod method) {
+        return handlers[method.ordinal()];
+    }
+}
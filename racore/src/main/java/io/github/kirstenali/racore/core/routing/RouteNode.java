@@ -0,0 +1,50 @@
+package io.github.kirstenali.racore.core.routing;
+
+import io.github.kirstenali.racore.handlers.EndpointHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+final class RouteNode {
+    Map<String, RouteNode> staticChildren;
+    RouteNode paramChild;
+    RouteNode wildcardChild;
+
+    EndpointHandler[] handlers;
+    String allow;
+    int paramCount;
+
+    RouteNode staticChild(String segment) {
+        if (staticChildren == null) staticChildren = new HashMap<>();
+        return staticChildren.computeIfAbsent(segment, _ -> new RouteNode());
+    }
+
+    RouteNode paramChild() {
+        if (paramChild == null) paramChild = new RouteNode();
+        return paramChild;
+    }
+
+    RouteNode wildcardChild() {
+        if (wildcardChild == null) wildcardChild = new RouteNode();
+        return wildcardChild;
+    }
+
+    void register(EndpointHandler handler) {
+        if (handlers == null) handlers = new EndpointHandler[HttpMethod.COUNT];
+        handlers[handler.method().ordinal()] = handler;
+        allow = buildAllow(handlers);
+    }
+
+    private static String buildAllow(EndpointHandler[] handlers) {
+        StringJoiner allow = new StringJoiner(", ");
+        for (HttpMethod method : HttpMethod.values()) {
+            boolean implicit = (method == HttpMethod.HEAD && handlers[HttpMethod.GET.ordinal()] != null)
+                    || method == HttpMethod.OPTIONS;
+            if (implicit || handlers[method.ordinal()] != null) {
+                allow.add(method.name());
+            }
+        }
+        return allow.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.kirstenali.racore.core.routing;
+
+import io.github.kirstenali.racore.handlers.EndpointHandler;
+
+import java.util.Arrays;
+
+/**
+ * Segment-based route trie built from endpoint templates at registration time.
+ * <p>
+ * A template such as {@code /users/{id}/orders} is split on {@code /} and each segment
+ * becomes a node: literal segments are stored in a per-node map, a {@code {name}} segment
+ * becomes the node's parameter child, and a trailing {@code *} matches the remainder of
+ * the path. Lookups walk the request path once, preferring literal segments over
+ * parameters and parameters over wildcards, and fall back to the next candidate only
+ * when a deeper branch fails to match. Each terminal node keeps its handlers in an
+ * array indexed by {@link HttpMethod}, so method dispatch after path resolution is a
+ * single array read.
+ * </p>
+ */
+public final class RouteTree {
+    private static final String[] NO_VALUES = new String[0];
+
+    private final RouteNode root = new RouteNode();
+    private volatile int maxParams;
+
+    public synchronized void insert(EndpointHandler handler) {
+        String template = handler.path();
+        if (template == null || !template.startsWith("/")) {
+            throw new IllegalArgumentException("Endpoint must start with '/': " + template);
+        }
+
+        RouteNode node = root;
+        int params = 0;
+        int start = template.length() > 1 ? 1 : -1;
+
+        while (start >= 0) {
+            int end = segmentEnd(template, start);
+            String segment = template.substring(start, end);
+
+            if (isParam(segment)) {
+                node = node.paramChild();
+                params++;
+            } else if (segment.equals("*")) {
+                if (end != template.length()) {
+                    throw new IllegalArgumentException("Wildcard must be the last segment: " + template);
+                }
+                node = node.wildcardChild();
+            } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0) {
+                throw new IllegalArgumentException("Path variables must span a whole segment: " + template);
+            } else {
+                node = node.staticChild(segment);
+            }
+
+            start = nextSegment(template, end);
+        }
+
+        node.register(handler);
+        node.paramCount = params;
+        if (params > maxParams) maxParams = params;
+    }
+
+    public RouteMatch match(String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') return null;
+
+        int max = maxParams;
+        String[] values = max == 0 ? NO_VALUES : new String[max];
+        RouteNode node = match(root, path, path.length() > 1 ? 1 : -1, values, 0);
+        if (node == null) return null;
+
+        if (values.length != node.paramCount) {
+            values = Arrays.copyOf(values, node.paramCount);
+        }
+        return new RouteMatch(node.handlers, node.allow, values);
+    }
+
+    private static RouteNode match(RouteNode node, String path, int start, String[] values, int depth) {
+        if (start < 0) {
+            if (node.handlers != null) return node;
+            return wildcard(node);
+        }
+
+        int end = segmentEnd(path, start);
+        int next = nextSegment(path, end);
+
+        if (node.staticChildren != null) {
+            RouteNode child = node.staticChildren.get(path.substring(start, end));
+            if (child != null) {
+                RouteNode found = match(child, path, next, values, depth);
+                if (found != null) return found;
+            }
+        }
+
+        if (node.paramChild != null && end > start && depth < values.length) {
+            RouteNode found = match(node.paramChild, path, next, values, depth + 1);
+            if (found != null) {
+                values[depth] = path.substring(start, end);
+                return found;
+            }
+        }
+
+        return wildcard(node);
+    }
+
+    private static RouteNode wildcard(RouteNode node) {
+        RouteNode wildcard = node.wildcardChild;
+        return wildcard != null && wildcard.handlers != null ? wildcard : null;
+    }
+
+    private static boolean isParam(String segment) {
+        return segment.length() > 2
+                && segment.charAt(0) == '{'
+                && segment.charAt(segment.length() - 1) == '}'
+                && segment.indexOf('{', 1) < 0;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static int nextSegment(String path, int end) {
+        return end < path.length() ? end + 1 : -1;
+    }
+}
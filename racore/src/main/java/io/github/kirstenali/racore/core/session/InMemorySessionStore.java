@@ -0,0 +1,228 @@
+package io.github.kirstenali.racore.core.session;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory session store split into independently locked shards.
+ * <p>
+ * Each shard keeps its sessions in access order, so the least recently used session is
+ * always first. That ordering serves two purposes: when a shard exceeds its share of
+ * {@code maxSessions} the eldest session is evicted, and the background reaper can stop
+ * scanning a shard at the first session that has not expired yet. The reaper visits one
+ * shard per tick, cycling through all of them once per reap interval, so no single pass
+ * ever walks the whole store.
+ * </p>
+ */
+public final class InMemorySessionStore implements SessionStore {
+    private static final int SHARDS = 16;
+    private static final int MAX_REAPED_PER_TICK = 1_000;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final Duration idleTimeout;
+    private final long idleTimeoutMs;
+    private final int maxPerShard;
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    private final Consumer<Session> onEvicted;
+    private final ScheduledExecutorService reaper;
+    private int nextShard;
+
+    public InMemorySessionStore(Duration idleTimeout) {
+        this(idleTimeout, RaConfig.getSessionMaxCount(), RaConfig.getSessionReapInterval());
+    }
+
+    /**
+     * @param maxSessions  upper bound on stored sessions; least recently used ones are evicted beyond it
+     * @param reapInterval time for the reaper to visit every shard once; zero or negative disables it
+     */
+    public InMemorySessionStore(Duration idleTimeout, int maxSessions, Duration reapInterval) {
+        this(idleTimeout, maxSessions, reapInterval, _ -> {});
+    }
+
+    /**
+     * @param onEvicted called, outside the store's locks, with each session evicted to stay within {@code maxSessions}
+     */
+    InMemorySessionStore(Duration idleTimeout, int maxSessions, Duration reapInterval, Consumer<Session> onEvicted) {
+        this.idleTimeout = idleTimeout;
+        this.onEvicted = onEvicted;
+        this.idleTimeoutMs = idleTimeout.toMillis();
+        this.maxPerShard = Math.max(1, (maxSessions + SHARDS - 1) / SHARDS);
+
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+
+        if (reapInterval.isPositive()) {
+            long period = Math.max(1, reapInterval.toMillis() / SHARDS);
+            reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "racore-session-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reaper.scheduleWithFixedDelay(this::reapNextShard, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            reaper = null;
+        }
+    }
+
+    @Override
+    public Optional<Session> getIfPresentAndNotExpired(String id, long nowMs) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            Session session = shard.sessions.get(id);
+            if (session == null) return Optional.empty();
+
+            if (isExpired(session, nowMs)) {
+                shard.sessions.remove(id);
+                expired.increment();
+                return Optional.empty();
+            }
+            return Optional.of(session);
+        }
+    }
+
+    @Override
+    public Session putNew(Session session) {
+        Shard shard = shardFor(session.id());
+        List<Session> evictedNow = List.of();
+        synchronized (shard) {
+            shard.sessions.put(session.id(), session);
+            if (shard.sessions.size() > maxPerShard) {
+                evictedNow = makeRoom(shard, session.lastAccessMs());
+            }
+        }
+        evictedNow.forEach(onEvicted);
+        return session;
+    }
+
+    @Override
+    public void remove(String id) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            shard.sessions.remove(id);
+        }
+    }
+
+    /**
+     * Removes every expired session in one pass over all shards.
+     * The background reaper makes calling this unnecessary in normal operation.
+     */
+    @Override
+    public int cleanupExpired(long nowMs) {
+        int removed = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<Session> it = shard.sessions.values().iterator();
+                while (it.hasNext()) {
+                    if (isExpired(it.next(), nowMs)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        expired.add(removed);
+        return removed;
+    }
+
+    boolean contains(String id) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            return shard.sessions.containsKey(id);
+        }
+    }
+
+    void forEach(Consumer<Session> action) {
+        for (Shard shard : shards) {
+            List<Session> snapshot;
+            synchronized (shard) {
+                snapshot = new ArrayList<>(shard.sessions.values());
+            }
+            snapshot.forEach(action);
+        }
+    }
+
+    @Override
+    public SessionStats stats() {
+        long live = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                live += shard.sessions.size();
+            }
+        }
+        return new SessionStats(live, expired.sum(), evicted.sum());
+    }
+
+    private void reapNextShard() {
+        try {
+            Shard shard = shards[nextShard];
+            nextShard = (nextShard + 1) % SHARDS;
+            reapEldest(shard, System.currentTimeMillis(), MAX_REAPED_PER_TICK);
+        } catch (RuntimeException e) {
+            System.err.println("Session reaper failed: " + e.getMessage());
+        }
+    }
+
+    private void reapEldest(Shard shard, long nowMs, int limit) {
+        synchronized (shard) {
+            Iterator<Session> it = shard.sessions.values().iterator();
+            int removed = 0;
+            while (removed < limit && it.hasNext()) {
+                if (!isExpired(it.next(), nowMs)) break;
+                it.remove();
+                removed++;
+            }
+            expired.add(removed);
+        }
+    }
+
+    private List<Session> makeRoom(Shard shard, long nowMs) {
+        reapEldest(shard, nowMs, shard.sessions.size() - maxPerShard);
+
+        List<Session> removed = new ArrayList<>();
+        Iterator<Session> it = shard.sessions.values().iterator();
+        while (shard.sessions.size() > maxPerShard && it.hasNext()) {
+            removed.add(it.next());
+            it.remove();
+            evicted.increment();
+        }
+        return removed;
+    }
+
+    private Shard shardFor(String id) {
+        int h = id.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    private boolean isExpired(Session s, long nowMs) {
+        long idleMs = nowMs - s.lastAccessMs();
+        return idleMs > idleTimeoutMs;
+    }
+
+    @Override
+    public Duration idleTimeout() { return idleTimeout; }
+
+    @Override
+    public void close() {
+        if (reaper != null) reaper.shutdownNow();
+    }
+
+    private static final class Shard {
+        final Map<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    }
+}
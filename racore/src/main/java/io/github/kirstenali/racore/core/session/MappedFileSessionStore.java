@@ -0,0 +1,289 @@
+package io.github.kirstenali.racore.core.session;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Session store that survives restarts by logging sessions to a memory-mapped, append-only file.
+ * <p>
+ * Lookups are served from an {@link InMemorySessionStore}. {@link #save(Session)} only queues
+ * {@linkplain Session#isDirty() dirty} sessions; a background flush appends one record per
+ * queued session every {@code session.flush-interval-ms}, so a hot session costs at most one
+ * write per interval. {@link #remove(String)} and evictions append their records immediately. Appending is a
+ * copy into the page cache rather than a rewrite of the whole store. When the log fills up it is compacted into a new file holding
+ * only live sessions, sized at twice their footprint, so each session is rewritten at most
+ * about once per doubling of the log. On startup the log is replayed; a torn or corrupt tail
+ * record ends the replay.
+ * </p>
+ * <p>
+ * Session values are written with Java serialization. A session holding a value that is not
+ * {@link java.io.Serializable} stays in memory but is not persisted.
+ * </p>
+ */
+public final class MappedFileSessionStore implements SessionStore {
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int RECORD_HEADER = 8; // length + CRC32
+    private static final int MIN_CAPACITY = 1 << 20;
+
+    private final Path file;
+    private final InMemorySessionStore sessions;
+    private final long idleTimeoutMs;
+
+    private final Set<Session> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+
+    private FileChannel channel;
+    private MappedByteBuffer log;
+
+    public MappedFileSessionStore(Path file, Duration idleTimeout) {
+        this(file, idleTimeout, RaConfig.getSessionMaxCount(), RaConfig.getSessionReapInterval());
+    }
+
+    public MappedFileSessionStore(Path file, Duration idleTimeout, int maxSessions, Duration reapInterval) {
+        this.file = file.toAbsolutePath();
+        this.sessions = new InMemorySessionStore(idleTimeout, maxSessions, reapInterval,
+                evicted -> append(encodeRemove(evicted.id())));
+        this.idleTimeoutMs = idleTimeout.toMillis();
+
+        try {
+            Files.createDirectories(this.file.getParent());
+            channel = FileChannel.open(this.file, CREATE, READ, WRITE);
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(MIN_CAPACITY, channel.size()));
+
+            replay(System.currentTimeMillis());
+            compact(0); // start from a log holding only the restored sessions
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open session file " + file, e);
+        }
+
+        long interval = Math.max(1, RaConfig.getSessionFlushInterval().toMillis());
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "racore-session-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<Session> getIfPresentAndNotExpired(String id, long nowMs) {
+        return sessions.getIfPresentAndNotExpired(id, nowMs);
+    }
+
+    @Override
+    public Session putNew(Session session) {
+        return sessions.putNew(session);
+    }
+
+    @Override
+    public void save(Session session) {
+        if (session.isDirty()) pending.add(session);
+    }
+
+    /**
+     * Writes every queued dirty session to the log now.
+     */
+    public synchronized void flush() {
+        for (Iterator<Session> it = pending.iterator(); it.hasNext(); ) {
+            Session session = it.next();
+            it.remove();
+            // a session removed since it was queued must not be written back to life
+            if (!session.markClean() || !sessions.contains(session.id())) continue;
+
+            byte[] record = encodePut(session);
+            if (record != null) append(record);
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        sessions.remove(id);
+        append(encodeRemove(id));
+    }
+
+    @Override
+    public int cleanupExpired(long nowMs) {
+        return sessions.cleanupExpired(nowMs);
+    }
+
+    @Override
+    public SessionStats stats() {
+        return sessions.stats();
+    }
+
+    @Override
+    public Duration idleTimeout() {
+        return sessions.idleTimeout();
+    }
+
+    @Override
+    public synchronized void close() {
+        flusher.shutdownNow();
+        sessions.close();
+        try {
+            flush();
+            log.force();
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to close session file " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to flush sessions to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void append(byte[] record) {
+        try {
+            if (log.remaining() < RECORD_HEADER + record.length) {
+                compact(RECORD_HEADER + record.length);
+            }
+            log.putInt(record.length).putInt(checksum(record)).put(record);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write session file " + file, e);
+        }
+    }
+
+    /**
+     * Rewrites the log with one record per live session, leaving at least {@code reserve}
+     * bytes free after them.
+     */
+    private void compact(int reserve) throws IOException {
+        long now = System.currentTimeMillis();
+        List<byte[]> records = new ArrayList<>();
+        long[] liveBytes = {0};
+        sessions.forEach(session -> {
+            if (isExpired(session, now)) return;
+            byte[] record = encodePut(session);
+            if (record == null) return;
+            records.add(record);
+            liveBytes[0] += RECORD_HEADER + record.length;
+        });
+
+        long capacity = Math.max(MIN_CAPACITY, 2 * (liveBytes[0] + reserve));
+        if (capacity > Integer.MAX_VALUE) throw new IOException("Session file would exceed 2 GB");
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tmp, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            for (byte[] record : records) {
+                buffer.putInt(record.length).putInt(checksum(record)).put(record);
+            }
+            buffer.force();
+        }
+
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, READ, WRITE);
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        log.position((int) liveBytes[0]);
+    }
+
+    private void replay(long nowMs) {
+        Map<String, Session> restored = new HashMap<>();
+        while (log.remaining() >= RECORD_HEADER) {
+            int start = log.position();
+            int length = log.getInt();
+            int crc = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                log.position(start);
+                break;
+            }
+
+            byte[] record = new byte[length];
+            log.get(record);
+            if (checksum(record) != crc) {
+                log.position(start);
+                break;
+            }
+            apply(record, restored);
+        }
+
+        for (Session session : restored.values()) {
+            if (!isExpired(session, nowMs)) sessions.putNew(session);
+        }
+    }
+
+    private void apply(byte[] record, Map<String, Session> restored) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            if (in.readByte() == REMOVE) {
+                restored.remove(in.readUTF());
+                return;
+            }
+
+            Session session = SessionSerialization.read(in);
+            restored.put(session.id(), session);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Skipping unreadable session record in " + file + ": " + e);
+        }
+    }
+
+    private byte[] encodePut(Session session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(PUT);
+            SessionSerialization.write(session, out);
+        } catch (NotSerializableException e) {
+            System.err.println("Session holds a value that is not serializable (" + e.getMessage() + "); it will not be persisted.");
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize session", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRemove(String id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(REMOVE);
+            out.writeUTF(id);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize session", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private boolean isExpired(Session s, long nowMs) {
+        return nowMs - s.lastAccessMs() > idleTimeoutMs;
+    }
+}
@@ -1,29 +1,115 @@
 package io.github.kirstenali.racore.core.session;
 
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+/**
+ * A user session.
+ * <p>
+ * A session handed out by {@link SessionManager#loadLazily} for a visitor without one is
+ * <em>pending</em>: it has no id, is not stored and reads as empty. The first {@link #put}
+ * creates it for real, which assigns its id and issues the session cookie.
+ * </p>
+ * <p>
+ * {@link #put}, {@link #remove} and any {@link #touch} that moves the last-access time are
+ * tracked as changes, so stores only write back sessions that are {@linkplain #isDirty() dirty}.
+ * Changes made directly through {@link #data()} are not tracked.
+ * </p>
+ * <p>
+ * In stateless mode the session travels in a cookie, so changes must be made before the
+ * response headers are sent. Changes made later, for example while streaming a response,
+ * cannot be saved.
+ * </p>
+ */
 public final class Session {
-    private final String id;
+    private static final long TOUCH_GRANULARITY_MS = RaConfig.getSessionTouchGranularity().toMillis();
+
+    private volatile String id;
     private final long createdAtMs;
     private volatile long lastAccessMs;
     private final Map<String, Object> data = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty;
+
+    private Consumer<Session> onFirstWrite;
 
     public Session(String id, long nowMs) {
         this.id = id;
         this.createdAtMs = nowMs;
         this.lastAccessMs = nowMs;
+        this.dirty = new AtomicBoolean(true);
+    }
+
+    /** Restores a previously saved session, which starts out clean. */
+    Session(String id, long createdAtMs, long lastAccessMs) {
+        this.id = id;
+        this.createdAtMs = createdAtMs;
+        this.lastAccessMs = lastAccessMs;
+        this.dirty = new AtomicBoolean(false);
     }
 
+    static Session pending(long nowMs, Consumer<Session> onFirstWrite) {
+        Session session = new Session(null, nowMs);
+        session.onFirstWrite = onFirstWrite;
+        return session;
+    }
+
+    /** Returns the session id, or {@code null} while the session is pending. */
     public String id() { return id; }
     public long createdAtMs() { return createdAtMs; }
     public long lastAccessMs() { return lastAccessMs; }
 
-    public void touch(long nowMs) { this.lastAccessMs = nowMs; }
+    /** Whether the session has been created, as opposed to pending its first write. */
+    public boolean exists() { return id != null; }
+
+    /**
+     * Records an access. The last-access time only moves once it is older than
+     * {@code session.touch-granularity-ms}, so parallel requests on a hot session mostly read
+     * it instead of all writing the same field.
+     */
+    public void touch(long nowMs) {
+        if (nowMs - lastAccessMs < TOUCH_GRANULARITY_MS) return;
+        lastAccessMs = nowMs;
+        markDirty();
+    }
+
+    /** Whether the session changed since it was created, restored or last {@linkplain #markClean() cleaned}. */
+    public boolean isDirty() { return dirty.get(); }
 
-    public Map<String, Object> data() { return data; }
+    /**
+     * Clears the dirty flag before the session is written out, returning whether it was set.
+     * A change made while the session is being written marks it dirty again.
+     */
+    public boolean markClean() { return dirty.getAndSet(false); }
+
+    /** Returns the session data; a pending session returns a read-only empty view. */
+    public Map<String, Object> data() { return exists() ? data : Collections.unmodifiableMap(data); }
 
     public Object get(String key) { return data.get(key); }
-    public void put(String key, Object value) { data.put(key, value); }
-    public void remove(String key) { data.remove(key); }
-}
\ No newline at end of file
+
+    public void put(String key, Object value) {
+        if (!exists()) create();
+        data.put(key, value);
+        markDirty();
+    }
+
+    public void remove(String key) {
+        if (data.remove(key) != null) markDirty();
+    }
+
+    private void markDirty() {
+        if (!dirty.get()) dirty.set(true);
+    }
+
+    void assignId(String id) { this.id = id; }
+
+    private synchronized void create() {
+        if (onFirstWrite == null) return;
+        onFirstWrite.accept(this);
+        onFirstWrite = null;
+    }
+}
@@ -0,0 +1,234 @@
+package io.github.kirstenali.racore.core.session;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes a whole {@link Session} into a cookie value and back, for the stateless
+ * {@link SessionManager} mode.
+ * <p>
+ * The session is serialized, deflated and then either HMAC-SHA256 signed
+ * ({@code payload.mac}) or AES-GCM encrypted ({@code iv||ciphertext}), all base64url encoded.
+ * The first key signs or encrypts new cookies; every key is accepted when reading, so keys can
+ * be rotated by prepending a new one and dropping the oldest once its cookies have expired.
+ * Cookies are authenticated before anything is deserialized.
+ * </p>
+ */
+public final class SessionCookieCodec {
+    private static final int MIN_SECRET_BYTES = 16;
+    private static final int MAX_INFLATED_BYTES = 64 * 1024;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+
+    private final List<Keys> keys;
+    private final boolean encrypt;
+    private final int maxCookieBytes;
+    private final SecureRandom rng = new SecureRandom();
+
+    public SessionCookieCodec(List<byte[]> secrets, boolean encrypt) {
+        this(secrets, encrypt, RaConfig.getSessionCookieMaxBytes());
+    }
+
+    /**
+     * @param secrets        signing secrets of at least 16 bytes, newest first
+     * @param encrypt        whether to encrypt the session instead of only signing it
+     * @param maxCookieBytes largest cookie value written or accepted
+     */
+    public SessionCookieCodec(List<byte[]> secrets, boolean encrypt, int maxCookieBytes) {
+        if (secrets.isEmpty()) throw new IllegalArgumentException("At least one secret is required");
+
+        this.keys = secrets.stream().map(Keys::derive).toList();
+        this.encrypt = encrypt;
+        this.maxCookieBytes = maxCookieBytes;
+    }
+
+    /**
+     * @throws IllegalStateException if the encoded session exceeds the cookie size limit
+     *                               or holds a value that is not serializable
+     */
+    public String encode(Session session) {
+        byte[] payload = deflate(serialize(session));
+        Keys current = keys.getFirst();
+
+        String value;
+        try {
+            if (encrypt) {
+                byte[] iv = new byte[IV_BYTES];
+                rng.nextBytes(iv);
+                byte[] sealed = cipher(Cipher.ENCRYPT_MODE, current, iv).doFinal(payload);
+
+                byte[] token = new byte[IV_BYTES + sealed.length];
+                System.arraycopy(iv, 0, token, 0, IV_BYTES);
+                System.arraycopy(sealed, 0, token, IV_BYTES, sealed.length);
+                value = B64.encodeToString(token);
+            } else {
+                value = B64.encodeToString(payload) + "." + B64.encodeToString(mac(current, payload));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to seal session cookie", e);
+        }
+
+        if (value.length() > maxCookieBytes) {
+            throw new IllegalStateException("Session cookie of " + value.length()
+                    + " bytes exceeds the limit of " + maxCookieBytes + " bytes");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the session carried by {@code value}, or empty if it is oversized, malformed
+     * or was not produced with one of this codec's keys.
+     */
+    public Optional<Session> decode(String value) {
+        if (value == null || value.length() > maxCookieBytes) return Optional.empty();
+
+        try {
+            byte[] payload = encrypt ? open(value) : verify(value);
+            if (payload == null) return Optional.empty();
+
+            byte[] serialized = inflate(payload);
+            if (serialized == null) return Optional.empty();
+
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+                return Optional.of(SessionSerialization.read(in));
+            }
+        } catch (IllegalArgumentException | IOException | ClassNotFoundException | ClassCastException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] verify(String value) {
+        int dot = value.indexOf('.');
+        if (dot < 0) return null;
+
+        byte[] payload = B64_DECODER.decode(value.substring(0, dot));
+        byte[] signature = B64_DECODER.decode(value.substring(dot + 1));
+        for (Keys key : keys) {
+            if (MessageDigest.isEqual(mac(key, payload), signature)) return payload;
+        }
+        return null;
+    }
+
+    private byte[] open(String value) {
+        byte[] token = B64_DECODER.decode(value);
+        if (token.length <= IV_BYTES) return null;
+
+        byte[] iv = new byte[IV_BYTES];
+        System.arraycopy(token, 0, iv, 0, IV_BYTES);
+        for (Keys key : keys) {
+            try {
+                return cipher(Cipher.DECRYPT_MODE, key, iv).doFinal(token, IV_BYTES, token.length - IV_BYTES);
+            } catch (GeneralSecurityException e) {
+                // sealed with a different key; try the next one
+            }
+        }
+        return null;
+    }
+
+    private static byte[] serialize(Session session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            SessionSerialization.write(session, out);
+        } catch (NotSerializableException e) {
+            throw new IllegalStateException("Session holds a value that is not serializable: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize session", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length);
+            byte[] chunk = new byte[512];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] chunk = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) return null;
+                out.write(chunk, 0, n);
+                if (out.size() > MAX_INFLATED_BYTES) return null;
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] mac(Keys key, byte[] payload) {
+        return hmac(key.mac, payload);
+    }
+
+    private static Cipher cipher(int mode, Keys key, byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, key.cipher, new GCMParameterSpec(TAG_BITS, iv));
+        return cipher;
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("HmacSHA256 is unavailable", e);
+        }
+    }
+
+    /**
+     * Separate signing and encryption keys derived from one secret, so a secret of any
+     * length yields a valid AES-256 key and is never used for two purposes.
+     */
+    private record Keys(SecretKeySpec mac, SecretKeySpec cipher) {
+        static Keys derive(byte[] secret) {
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("Session secrets must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+            SecretKeySpec master = new SecretKeySpec(secret, "HmacSHA256");
+            byte[] macKey = hmac(master, "racore-session-mac".getBytes(StandardCharsets.US_ASCII));
+            byte[] cipherKey = hmac(master, "racore-session-enc".getBytes(StandardCharsets.US_ASCII));
+            return new Keys(new SecretKeySpec(macKey, "HmacSHA256"), new SecretKeySpec(cipherKey, "AES"));
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package io.github.kirstenali.racore.core.session;
 
 import com.sun.net.httpserver.HttpExchange;
+import io.github.kirstenali.racore.core.jfr.RaEventTypes;
+import io.github.kirstenali.racore.core.jfr.RaSessionLoadEvent;
 import io.github.kirstenali.racore.core.utils.CookieUtil;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -11,13 +14,36 @@ public final class SessionManager {
     public static final String EXCHANGE_SESSION_ATTR = "racore.session";
     private final String cookieName;
     private final SessionStore store;
+    private final SessionCookieCodec cookieCodec;
+    private final Duration idleTimeout;
     private final CookieUtil.CookieOptions cookieOptions;
 
     private final SecureRandom rng = new SecureRandom();
 
+    /**
+     * Server-side mode: the cookie carries a random session id and {@code store} holds the session.
+     */
     public SessionManager(String cookieName, SessionStore store, CookieUtil.CookieOptions cookieOptions) {
+        this(cookieName, store, null, store.idleTimeout(), cookieOptions);
+    }
+
+    /**
+     * Stateless mode: the whole session travels in a cookie sealed by {@code cookieCodec},
+     * so any node sharing the codec's keys can serve any request. The cookie is re-issued
+     * after requests that leave the session dirty; since a touch marks it dirty at most once
+     * per {@code session.touch-granularity-ms}, this also slides its idle timeout.
+     */
+    public SessionManager(String cookieName, SessionCookieCodec cookieCodec, Duration idleTimeout,
+                          CookieUtil.CookieOptions cookieOptions) {
+        this(cookieName, null, cookieCodec, idleTimeout, cookieOptions);
+    }
+
+    private SessionManager(String cookieName, SessionStore store, SessionCookieCodec cookieCodec,
+                           Duration idleTimeout, CookieUtil.CookieOptions cookieOptions) {
         this.cookieName = cookieName;
         this.store = store;
+        this.cookieCodec = cookieCodec;
+        this.idleTimeout = idleTimeout;
         this.cookieOptions = cookieOptions;
     }
 
@@ -34,12 +60,35 @@ public final class SessionManager {
                 .orElseGet(() -> create(ex, now));
     }
 
+    /**
+     * Loads the visitor's session, or installs a pending one that is only created, and only
+     * gets a cookie, once something is written to it. Requests that never write to the session
+     * cost no session id, no store entry and no {@code Set-Cookie} header.
+     */
+    public Session loadLazily(HttpExchange ex) {
+        long now = System.currentTimeMillis();
+
+        return load(ex, now).orElseGet(() -> {
+            Session session = Session.pending(now, s -> createPending(ex, s));
+            ex.setAttribute(EXCHANGE_SESSION_ATTR, session);
+            return session;
+        });
+    }
+
     private Optional<Session> load(HttpExchange ex, long now) {
         Optional<String> sidOpt = CookieUtil.readCookie(ex, cookieName);
         if (sidOpt.isEmpty()) return Optional.empty();
 
-        String sid = sidOpt.get();
-        Optional<Session> existing = store.getIfPresentAndNotExpired(sid, now);
+        RaSessionLoadEvent event = RaEventTypes.SESSION_LOAD.isEnabled() ? new RaSessionLoadEvent() : null;
+        if (event != null) event.start();
+        Optional<Session> existing = store != null
+                ? store.getIfPresentAndNotExpired(sidOpt.get(), now)
+                : cookieCodec.decode(sidOpt.get()).filter(s -> now - s.lastAccessMs() <= idleTimeout.toMillis());
+        if (event != null && event.stop()) {
+            event.stateless = store == null;
+            event.found = existing.isPresent();
+            event.commit();
+        }
         if (existing.isEmpty()) return Optional.empty();
 
         Session session = existing.get();
@@ -49,20 +98,55 @@ public final class SessionManager {
     }
 
     public Session create(HttpExchange ex, long now) {
-        String newId = newSessionId();
-        Session session = new Session(newId, now);
-        store.putNew(session);
-
-        CookieUtil.CookieOptions opts = cookieOptions.withMaxAge(store.idleTimeout());
-        CookieUtil.setCookie(ex, cookieName, newId, opts);
+        Session session = new Session(newSessionId(), now);
+        register(ex, session);
 
         ex.setAttribute(EXCHANGE_SESSION_ATTR, session);
         return session;
     }
 
+    private void createPending(HttpExchange ex, Session session) {
+        session.assignId(newSessionId());
+        if (store != null && ex.getResponseCode() != -1) {
+            // the cookie can no longer be set, so a stored session would never be found again
+            System.err.println("Session created on " + ex.getRequestURI().getPath()
+                    + " was dropped: the response was sent before the session cookie could be set.");
+            return;
+        }
+        register(ex, session);
+    }
+
+    private void register(HttpExchange ex, Session session) {
+        if (store != null) {
+            store.putNew(session);
+            CookieUtil.setCookie(ex, cookieName, session.id(), cookieOptions.withMaxAge(idleTimeout));
+        }
+    }
+
+    /**
+     * Hands the exchange's session back to the store once the request has been handled.
+     * In stateless mode this re-issues the session cookie if the session is dirty, which is only
+     * possible while the response headers have not been sent yet; changes made after that,
+     * such as from a streaming handler, are lost and logged.
+     */
+    public void save(HttpExchange ex) {
+        if (!(ex.getAttribute(EXCHANGE_SESSION_ATTR) instanceof Session session) || !session.exists()) return;
+
+        if (store != null) {
+            store.save(session);
+        } else if (ex.getResponseCode() != -1) {
+            if (session.isDirty()) {
+                System.err.println("Session changes on " + ex.getRequestURI().getPath()
+                        + " were dropped: the response was sent before the session cookie could be re-issued.");
+            }
+        } else if (session.markClean()) {
+            CookieUtil.setCookie(ex, cookieName, cookieCodec.encode(session), cookieOptions.withMaxAge(idleTimeout));
+        }
+    }
+
     public void destroy(HttpExchange ex) {
         Session session = (Session) ex.getAttribute(EXCHANGE_SESSION_ATTR);
-        if (session != null) store.remove(session.id());
+        if (session != null && session.exists() && store != null) store.remove(session.id());
         CookieUtil.clearCookie(ex, cookieName, cookieOptions);
         ex.setAttribute(EXCHANGE_SESSION_ATTR, null);
     }
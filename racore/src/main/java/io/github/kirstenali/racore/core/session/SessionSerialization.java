@@ -0,0 +1,70 @@
+package io.github.kirstenali.racore.core.session;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary form of a session shared by the persistent and cookie-based session modes:
+ * id, creation and last-access times, then {@link Session#data()} written with Java serialization.
+ * Reading only accepts java.base value and collection types plus the classes listed in
+ * {@link RaConfig#getSessionDeserializationAllowList()}.
+ */
+final class SessionSerialization {
+    private static final Set<String> BASE_PACKAGES = Set.of("java.lang", "java.util", "java.math", "java.time");
+
+    private static final ObjectInputFilter FILTER = filter(RaConfig.getSessionDeserializationAllowList());
+
+    private SessionSerialization() {}
+
+    static void write(Session session, DataOutputStream out) throws IOException {
+        out.writeUTF(session.id());
+        out.writeLong(session.createdAtMs());
+        out.writeLong(session.lastAccessMs());
+
+        ObjectOutputStream data = new ObjectOutputStream(out);
+        data.writeObject(new HashMap<>(session.data()));
+        data.flush();
+    }
+
+    /** Reads a session; classes the filter rejects fail with {@link java.io.InvalidClassException}. */
+    static Session read(DataInputStream in) throws IOException, ClassNotFoundException {
+        Session session = new Session(in.readUTF(), in.readLong(), in.readLong());
+
+        ObjectInputStream data = new ObjectInputStream(in);
+        data.setObjectInputFilter(FILTER);
+        Map<?, ?> values = (Map<?, ?>) data.readObject();
+        values.forEach((key, value) -> session.data().put((String) key, value));
+        return session;
+    }
+
+    private static ObjectInputFilter filter(List<String> allowed) {
+        ObjectInputFilter configured = allowed.isEmpty() ? null
+                : ObjectInputFilter.Config.createFilter(String.join(";", allowed));
+
+        return info -> {
+            Class<?> type = info.serialClass();
+            if (type == null) return ObjectInputFilter.Status.UNDECIDED;
+            while (type.isArray()) type = type.getComponentType();
+
+            if (type.isPrimitive() || isBaseType(type)) return ObjectInputFilter.Status.ALLOWED;
+            if (configured != null && configured.checkInput(info) == ObjectInputFilter.Status.ALLOWED) {
+                return ObjectInputFilter.Status.ALLOWED;
+            }
+            return ObjectInputFilter.Status.REJECTED;
+        };
+    }
+
+    private static boolean isBaseType(Class<?> type) {
+        return type.getModule() == Object.class.getModule() && BASE_PACKAGES.contains(type.getPackageName());
+    }
+}
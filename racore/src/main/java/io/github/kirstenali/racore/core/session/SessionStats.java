@@ -0,0 +1,11 @@
+package io.github.kirstenali.racore.core.session;
+
+/**
+ * Point-in-time counters of a {@link SessionStore}.
+ *
+ * @param live    sessions currently held, including expired ones not yet reaped
+ * @param expired sessions removed because they were idle longer than the timeout
+ * @param evicted sessions removed to stay within the maximum session count
+ */
+public record SessionStats(long live, long expired, long evicted) {
+}
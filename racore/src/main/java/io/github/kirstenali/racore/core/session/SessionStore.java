@@ -1,56 +1,35 @@
 package io.github.kirstenali.racore.core.session;
 
 import java.time.Duration;
-import java.util.Iterator;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-
-public final class SessionStore {
-    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
-    private final Duration idleTimeout;
-
-    public SessionStore(Duration idleTimeout) {
-        this.idleTimeout = idleTimeout;
-    }
-
-    public Optional<Session> getIfPresentAndNotExpired(String id, long nowMs) {
-        Session session = sessions.get(id);
-        if (session == null) return Optional.empty();
-
-        if (isExpired(session, nowMs)) {
-            sessions.remove(id);
-            return Optional.empty();
-        }
-        return Optional.of(session);
-    }
-
-    public Session putNew(Session session) {
-        sessions.put(session.id(), session);
-        return session;
-    }
-
-    public void remove(String id) {
-        sessions.remove(id);
-    }
-
-    public int cleanupExpired(long nowMs) {
-        int removed = 0;
-        Iterator<Map.Entry<String, Session>> it = sessions.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<String, Session> e = it.next();
-            if (isExpired(e.getValue(), nowMs)) {
-                it.remove();
-                removed++;
-            }
-        }
-        return removed;
-    }
-
-    private boolean isExpired(Session s, long nowMs) {
-        long idleMs = nowMs - s.lastAccessMs();
-        return idleMs > idleTimeout.toMillis();
-    }
-
-    public Duration idleTimeout() { return idleTimeout; }
-}
\ No newline at end of file
+
+/**
+ * Storage for server-side sessions used by {@link SessionManager}.
+ * <p>
+ * {@link InMemorySessionStore} keeps sessions on the heap only; {@link MappedFileSessionStore}
+ * additionally persists them so they survive a restart.
+ * </p>
+ */
+public interface SessionStore extends AutoCloseable {
+
+    Optional<Session> getIfPresentAndNotExpired(String id, long nowMs);
+
+    Session putNew(Session session);
+
+    /**
+     * Called after a request that used {@code session} has been handled, so stores that
+     * persist sessions can record changes to its data. The in-memory store ignores it.
+     */
+    default void save(Session session) { }
+
+    void remove(String id);
+
+    int cleanupExpired(long nowMs);
+
+    SessionStats stats();
+
+    Duration idleTimeout();
+
+    @Override
+    default void close() { }
+}
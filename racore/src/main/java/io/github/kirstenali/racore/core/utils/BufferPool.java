@@ -0,0 +1,36 @@
+package io.github.kirstenali.racore.core.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A small pool of equally sized byte arrays shared across request threads.
+ * <p>
+ * Unlike a {@code ThreadLocal} cache this works with virtual threads, where every request
+ * runs on a fresh thread. When the pool is empty a new array is allocated; arrays released
+ * into a full pool are left to the garbage collector.
+ * </p>
+ */
+public final class BufferPool {
+    private final int bufferSize;
+    private final ArrayBlockingQueue<byte[]> free;
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    public byte[] acquire() {
+        byte[] buffer = free.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            free.offer(buffer);
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.kirstenali.racore.core.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An inclusive byte range of a static file, as requested by an HTTP {@code Range} header.
+ */
+public record ByteRange(long start, long end) {
+    private static final int MAX_RANGES = 16;
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String contentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    /**
+     * Parses a {@code Range} header against a resource of {@code size} bytes.
+     *
+     * @return {@code null} if the header is absent, malformed or asks for more than
+     * {@value #MAX_RANGES} ranges (serve the whole resource), an empty list if no range is
+     * satisfiable (respond 416), otherwise the satisfiable ranges in request order
+     */
+    public static List<ByteRange> parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) return null;
+
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) return null;
+
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String raw : specs) {
+            String spec = raw.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) return null;
+
+            long start;
+            long end;
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    start = Math.max(0, size - suffix);
+                    end = size - 1;
+                    if (suffix <= 0) continue;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                    if (start < 0 || last < start) return null;
+                    end = Math.min(last, size - 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            if (start < size) ranges.add(new ByteRange(start, end));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.kirstenali.racore.core.utils;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a {@code gzip} or {@code deflate} coded body using pooled {@link Deflater}s and
+ * output buffers. {@link #flush()} performs a sync flush so streamed chunks reach the client
+ * without waiting for the compressor to fill a block.
+ */
+public final class CompressingOutputStream extends OutputStream {
+    private static final DeflaterPool deflaters = new DeflaterPool(RaConfig.getCompressionLevel(), 32);
+    private static final BufferPool buffers = new BufferPool(8 * 1024, 64);
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+    private final boolean gzip;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private byte[] buffer;
+
+    public CompressingOutputStream(OutputStream out, ContentEncoding encoding) throws IOException {
+        if (encoding != ContentEncoding.GZIP && encoding != ContentEncoding.DEFLATE) {
+            throw new IllegalArgumentException("Cannot encode " + encoding.token() + " on the fly");
+        }
+        this.out = out;
+        this.gzip = encoding == ContentEncoding.GZIP;
+        this.deflater = deflaters.acquire(gzip);
+        this.crc = gzip ? new CRC32() : null;
+        this.buffer = buffers.acquire();
+
+        if (gzip) out.write(GZIP_HEADER);
+    }
+
+    /**
+     * Compresses {@code bytes} in one go, e.g. for caching an encoded static asset.
+     */
+    public static byte[] compress(byte[] bytes, ContentEncoding encoding) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+        try (var compressing = new CompressingOutputStream(result, encoding)) {
+            compressing.write(bytes, 0, bytes.length);
+        }
+        return result.toByteArray();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return;
+        if (crc != null) crc.update(b, off, len);
+
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        int n;
+        do {
+            n = deflate(Deflater.SYNC_FLUSH);
+        } while (n == buffer.length);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) return;
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            if (gzip) writeGzipTrailer();
+        } finally {
+            deflaters.release(deflater, gzip);
+            buffers.release(buffer);
+            buffer = null;
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the pooled deflater and buffer without finishing the coded body or closing the
+     * underlying stream, for a response that failed part-way.
+     */
+    public void discard() {
+        if (buffer == null) return;
+        deflaters.release(deflater, gzip);
+        buffers.release(buffer);
+        buffer = null;
+    }
+
+    private int deflate(int flushMode) throws IOException {
+        int n = deflater.deflate(buffer, 0, buffer.length, flushMode);
+        if (n > 0) out.write(buffer, 0, n);
+        return n;
+    }
+
+    private void writeGzipTrailer() throws IOException {
+        int checksum = (int) crc.getValue();
+        int size = (int) deflater.getBytesRead();
+        out.write(new byte[]{
+                (byte) checksum, (byte) (checksum >> 8), (byte) (checksum >> 16), (byte) (checksum >> 24),
+                (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.kirstenali.racore.core.utils;
+
+import java.util.Set;
+
+/**
+ * Response content codings RaCore can send, in order of server preference.
+ * Brotli is only ever served from precompressed {@code .br} files; there is no encoder for it.
+ */
+public enum ContentEncoding {
+    BR("br", ".br"),
+    GZIP("gzip", ".gz"),
+    DEFLATE("deflate", null);
+
+    private final String token;
+    private final String fileSuffix;
+
+    ContentEncoding(String token, String fileSuffix) {
+        this.token = token;
+        this.fileSuffix = fileSuffix;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public String fileSuffix() {
+        return fileSuffix;
+    }
+
+    /**
+     * Picks the most preferred of {@code available} that the {@code Accept-Encoding} header allows.
+     *
+     * @return the chosen coding, or {@code null} to send the identity representation
+     */
+    public static ContentEncoding negotiate(String acceptEncoding, Set<ContentEncoding> available) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty() || available.isEmpty()) return null;
+
+        for (ContentEncoding encoding : values()) {
+            if (available.contains(encoding) && accepts(acceptEncoding, encoding.token)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    private static boolean accepts(String header, String token) {
+        boolean wildcard = false;
+        for (String part : header.split(",")) {
+            int semi = part.indexOf(';');
+            String name = (semi < 0 ? part : part.substring(0, semi)).trim();
+            boolean allowed = semi < 0 || qualityAboveZero(part.substring(semi + 1));
+
+            if (name.equalsIgnoreCase(token)) return allowed;
+            if (name.equals("*")) wildcard = allowed;
+        }
+        return wildcard;
+    }
+
+    private static boolean qualityAboveZero(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.startsWith("q=") || p.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
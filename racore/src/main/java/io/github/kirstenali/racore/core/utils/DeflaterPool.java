@@ -0,0 +1,33 @@
+package io.github.kirstenali.racore.core.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Reuses {@link Deflater}s, whose native state is expensive to create and only freed by
+ * {@link Deflater#end()}. Raw ({@code nowrap}) deflaters back gzip output; zlib-wrapped ones
+ * back the HTTP {@code deflate} coding.
+ */
+public final class DeflaterPool {
+    private final int level;
+    private final ArrayBlockingQueue<Deflater> raw;
+    private final ArrayBlockingQueue<Deflater> wrapped;
+
+    public DeflaterPool(int level, int maxPooled) {
+        this.level = level;
+        this.raw = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+        this.wrapped = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    public Deflater acquire(boolean nowrap) {
+        Deflater deflater = (nowrap ? raw : wrapped).poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    public void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!(nowrap ? raw : wrapped).offer(deflater)) {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.kirstenali.racore.core.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Sends response headers the same way on every server backend, including for {@code HEAD}
+ * requests, which the framework answers by running the {@code GET} handler.
+ */
+public final class ExchangeUtil {
+    private ExchangeUtil() {}
+
+    public static boolean isHead(HttpExchange exchange) {
+        return "HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+    }
+
+    /**
+     * Sends the response headers and returns the stream to write the body to, like
+     * {@code sendResponseHeaders} followed by {@code getResponseBody}. A response to a
+     * {@code HEAD} request declares the {@code Content-Length} a {@code GET} would get, and
+     * whatever is written to the returned stream is discarded.
+     */
+    public static OutputStream sendHeaders(HttpExchange exchange, int statusCode, long length) throws IOException {
+        if (!isHead(exchange)) {
+            exchange.sendResponseHeaders(statusCode, length);
+            return exchange.getResponseBody();
+        }
+
+        if (length > 0) exchange.getResponseHeaders().set("Content-Length", Long.toString(length));
+        exchange.sendResponseHeaders(statusCode, -1);
+        return new DiscardingOutputStream(exchange.getResponseBody());
+    }
+
+    /** Drops writes, but flushes and closes the exchange's stream like a real body would. */
+    private static final class DiscardingOutputStream extends FilterOutputStream {
+        DiscardingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.kirstenali.racore.core.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Implemented by response body streams that can send file regions straight to the client.
+ * {@link FileUtils} hands such streams the file itself, so the transfer can go from the page
+ * cache to the socket ({@code sendfile}) instead of being copied through the stream.
+ */
+public interface FileTransferTarget {
+
+    /**
+     * Sends up to {@code count} bytes of {@code file} starting at {@code position}.
+     *
+     * @return the number of bytes sent
+     */
+    long transferFrom(FileChannel file, long position, long count) throws IOException;
+}
@@ -1,11 +1,28 @@
 package io.github.kirstenali.racore.core.utils;
 
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
 
 public class FileUtils {
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final StaticAssetCache UNCACHED = StaticAssetCache.disabled();
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
     public static Path getFilePath(String directory, String fileName) {
         return Paths.get(directory, fileName).normalize();
     }
@@ -19,18 +36,212 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Streams a file to the client without loading it into memory.
+     *
+     * @see #sendStaticFile(HttpExchange, Path, StaticAssetCache)
+     */
     public static void sendStaticFileResponse(HttpExchange exchange, Path filePath) throws IOException {
-        byte[] fileBytes = readFile(filePath);
+        sendStaticFile(exchange, filePath, UNCACHED);
+    }
+
+    /**
+     * Sends a file through {@code cache}, choosing a compressed representation when the client
+     * accepts one: a precompressed {@code .br} or {@code .gz} sibling, or the cached in-memory
+     * gzip variant. Range requests always get the identity representation.
+     */
+    public static void sendStaticFile(HttpExchange exchange, Path filePath, StaticAssetCache cache) throws IOException {
+        StaticAsset asset = cache.get(filePath);
+
+        Set<ContentEncoding> available = asset.availableEncodings();
+        if (available.isEmpty()) {
+            sendStaticAsset(exchange, asset);
+            return;
+        }
+
+        Headers requestHeaders = exchange.getRequestHeaders();
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+
+        ContentEncoding encoding = requestHeaders.getFirst("Range") == null
+                ? ContentEncoding.negotiate(requestHeaders.getFirst("Accept-Encoding"), available)
+                : null;
+        if (encoding == null) {
+            sendStaticAsset(exchange, asset);
+            return;
+        }
+
+        StaticAsset encoded = asset.precompressed().contains(encoding)
+                ? cache.get(StaticAsset.sibling(filePath, encoding)).asEncodingOf(asset)
+                : asset.gzipped();
+        exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+        sendStaticAsset(exchange, encoded);
+    }
+
+    /**
+     * Sends a static asset, from memory when its bytes are cached and otherwise from a
+     * {@link FileChannel} in fixed-size chunks.
+     * <p>
+     * {@code If-None-Match} and {@code If-Modified-Since} are answered with {@code 304 Not Modified}.
+     * Single and multiple {@code Range} requests are answered with {@code 206 Partial Content}
+     * (multiple ranges as {@code multipart/byteranges}), unsatisfiable ones with {@code 416}, and
+     * {@code If-Range} falls back to the full body when the file has changed.
+     * </p>
+     */
+    public static void sendStaticAsset(HttpExchange exchange, StaticAsset asset) throws IOException {
+        long size = asset.size();
+        String mimeType = asset.mimeType();
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Accept-Ranges", "bytes");
+        headers.set("ETag", asset.etag());
+        headers.set("Last-Modified", httpDate(asset.lastModified()));
+
+        Headers requestHeaders = exchange.getRequestHeaders();
+        if (isNotModified(requestHeaders, asset)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        List<ByteRange> ranges = requestedRanges(requestHeaders, size, asset.etag(), asset.lastModified());
+
+        if (ranges == null) {
+            headers.set("Content-Type", mimeType);
+            OutputStream body = ExchangeUtil.sendHeaders(exchange, 200, size == 0 ? -1 : size);
+            transfer(exchange, body, asset, List.of(new ByteRange(0, size - 1)), null);
+        } else if (ranges.isEmpty()) {
+            headers.set("Content-Range", "bytes */" + size);
+            exchange.sendResponseHeaders(416, -1);
+            exchange.close();
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.getFirst();
+            headers.set("Content-Type", mimeType);
+            headers.set("Content-Range", range.contentRange(size));
+            OutputStream body = ExchangeUtil.sendHeaders(exchange, 206, range.length());
+            transfer(exchange, body, asset, ranges, null);
+        } else {
+            String boundary = "RACORE" + Long.toHexString(System.nanoTime());
+            headers.set("Content-Type", "multipart/byteranges; boundary=" + boundary);
+            OutputStream body = ExchangeUtil.sendHeaders(exchange, 206, multipartLength(ranges, boundary, mimeType, size));
+            transfer(exchange, body, asset, ranges, boundary);
+        }
+    }
+
+    public static String entityTag(long size, long lastModifiedMs) {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModifiedMs) + "\"";
+    }
+
+    public static String httpDate(long epochMs) {
+        return HTTP_DATE.format(Instant.ofEpochMilli(epochMs));
+    }
+
+    private static boolean isNotModified(Headers requestHeaders, StaticAsset asset) {
+        String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            return etagListMatches(ifNoneMatch, asset.etag());
+        }
+
+        String ifModifiedSince = requestHeaders.getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toEpochSecond();
+                return asset.lastModified() / 1000 <= since;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
 
-        String mimeType = Files.probeContentType(filePath);
-        if (mimeType == null) {
-            mimeType = "application/octet-stream";
+    private static boolean etagListMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
         }
-        exchange.getResponseHeaders().set("Content-Type", mimeType);
-        exchange.sendResponseHeaders(200, fileBytes.length);
+        return false;
+    }
+
+    private static List<ByteRange> requestedRanges(Headers requestHeaders, long size, String etag, long lastModified) {
+        String range = requestHeaders.getFirst("Range");
+        if (range == null) return null;
+
+        String ifRange = requestHeaders.getFirst("If-Range");
+        if (ifRange != null && !ifRangeMatches(ifRange.trim(), etag, lastModified)) return null;
+
+        return ByteRange.parse(range, size);
+    }
+
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long since = ZonedDateTime.parse(ifRange, HTTP_DATE).toEpochSecond();
+            return since == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static void transfer(HttpExchange exchange, OutputStream body, StaticAsset asset, List<ByteRange> ranges,
+                                 String boundary) throws IOException {
+        try (OutputStream os = body) {
+            if (ExchangeUtil.isHead(exchange)) return;
+            if (asset.bytes() != null) {
+                for (ByteRange range : ranges) {
+                    if (boundary != null) os.write(partHeader(boundary, asset.mimeType(), range, asset.size()));
+                    os.write(asset.bytes(), (int) range.start(), (int) range.length());
+                }
+            } else {
+                transferFromDisk(os, asset, ranges, boundary);
+            }
 
-        try (var os = exchange.getResponseBody()) {
-            os.write(fileBytes);
+            if (boundary != null) os.write(closingBoundary(boundary));
         }
     }
+
+    private static void transferFromDisk(OutputStream os, StaticAsset asset, List<ByteRange> ranges,
+                                         String boundary) throws IOException {
+        try (FileChannel file = FileChannel.open(asset.path(), StandardOpenOption.READ)) {
+            FileTransferTarget direct = os instanceof FileTransferTarget t ? t : null;
+            WritableByteChannel target = direct == null ? Channels.newChannel(os) : null;
+
+            for (ByteRange range : ranges) {
+                if (boundary != null) os.write(partHeader(boundary, asset.mimeType(), range, asset.size()));
+
+                long position = range.start();
+                long remaining = range.length();
+                while (remaining > 0) {
+                    long chunk = Math.min(remaining, TRANSFER_CHUNK);
+                    long sent = direct != null
+                            ? direct.transferFrom(file, position, chunk)
+                            : file.transferTo(position, chunk, target);
+                    if (sent <= 0) throw new IOException("File truncated while sending: " + asset.path());
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+        }
+    }
+
+    private static long multipartLength(List<ByteRange> ranges, String boundary, String mimeType, long size) {
+        long length = closingBoundary(boundary).length;
+        for (ByteRange range : ranges) {
+            length += partHeader(boundary, mimeType, range, size).length + range.length();
+        }
+        return length;
+    }
+
+    private static byte[] partHeader(String boundary, String mimeType, ByteRange range, long size) {
+        String header = "\r\n--" + boundary + "\r\n"
+                + "Content-Type: " + mimeType + "\r\n"
+                + "Content-Range: " + range.contentRange(size) + "\r\n\r\n";
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] closingBoundary(String boundary) {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
 }
@@ -3,39 +3,101 @@ package io.github.kirstenali.racore.core.utils;
 import com.sun.net.httpserver.HttpExchange;
 import org.apache.commons.fileupload2.core.*;
 import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import io.github.kirstenali.racore.core.jfr.RaEventTypes;
+import io.github.kirstenali.racore.core.jfr.RaMultipartParseEvent;
 import io.github.kirstenali.racore.core.requests.CustomRequest;
 import io.github.kirstenali.racore.core.requests.HttpExchangeRequestContext;
+import io.github.kirstenali.racore.core.requests.PartConsumer;
+import io.github.kirstenali.racore.core.requests.PayloadTooLargeException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class FormDataExtractor {
+    private static final CustomRequest EMPTY = new CustomRequest(Collections.emptyMap(), Collections.emptyMap());
+    private static final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> UPLOAD =
+            new JakartaServletFileUpload<>(new DiskFileItemFactory.Builder().get());
 
     public static CustomRequest extractFormData(HttpExchange exchange) {
+        HttpExchangeRequestContext context = new HttpExchangeRequestContext(exchange);
+        if (!JakartaServletFileUpload.isMultipartContent(context)) {
+            return EMPTY;
+        }
+
+        RaMultipartParseEvent event = RaEventTypes.MULTIPART_PARSE.isEnabled() ? new RaMultipartParseEvent() : null;
+        if (event != null) event.start();
+        List<DiskFileItem> items;
+        try {
+            items = UPLOAD.parseRequest(context);
+        } catch (FileUploadException e) {
+            throw new RuntimeException(e);
+        }
+
         Map<String, String> formFields = new HashMap<>();
         Map<String, DiskFileItem> files = new HashMap<>();
+        for (DiskFileItem item : items) {
+            if (item.isFormField()) {
+                formFields.put(item.getFieldName(), item.getString());
+            } else {
+                files.put(item.getFieldName(), item);
+            }
+        }
 
-        if (JakartaServletFileUpload.isMultipartContent(new HttpExchangeRequestContext(exchange))) {
-            DiskFileItemFactory factory = new DiskFileItemFactory.Builder().get();
-            JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>(factory);
+        if (event != null && event.stop()) {
+            event.contentLength = context.getContentLength();
+            event.fields = formFields.size();
+            event.files = files.size();
+            event.commit();
+        }
+        return new CustomRequest(formFields, files);
+    }
 
-            List<DiskFileItem> items;
-            try {
-                items = upload.parseRequest(new HttpExchangeRequestContext(exchange));
-            } catch (FileUploadException e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * Hands each part of a multipart body to {@code consumer} as it is read, enforcing the
+     * per-part and total size limits ({@code -1} for none) while streaming.
+     */
+    public static void streamParts(HttpExchange exchange, long maxPartSize, long maxSize, PartConsumer consumer) {
+        HttpExchangeRequestContext context = new HttpExchangeRequestContext(exchange);
+        if (!JakartaServletFileUpload.isMultipartContent(context)) {
+            return;
+        }
+
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setFileSizeMax(maxPartSize);
+        upload.setSizeMax(maxSize);
 
-            for (DiskFileItem item : items) {
-                if (item.isFormField()) {
-                    formFields.put(item.getFieldName(), item.getString());
-                } else {
-                    files.put(item.getFieldName(), item);
-                }
+        RaMultipartParseEvent event = RaEventTypes.MULTIPART_PARSE.isEnabled() ? new RaMultipartParseEvent() : null;
+        if (event != null) event.start();
+        int fields = 0;
+        int files = 0;
+        try {
+            FileItemInputIterator parts = upload.getItemIterator(context);
+            while (parts.hasNext()) {
+                FileItemInput part = parts.next();
+                if (part.isFormField()) fields++;
+                else files++;
+                consumer.accept(part);
             }
+        } catch (FileUploadSizeException e) {
+            throw new PayloadTooLargeException(e.getPermitted());
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof FileUploadSizeException tooLarge) {
+                throw new PayloadTooLargeException(tooLarge.getPermitted());
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read multipart request", e);
         }
 
-        return new CustomRequest(formFields, files);
+        if (event != null && event.stop()) {
+            event.contentLength = context.getContentLength();
+            event.fields = fields;
+            event.files = files;
+            event.commit();
+        }
     }
 }
@@ -1,13 +1,11 @@
 package io.github.kirstenali.racore.core.utils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 public class JsonUtils {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     public static String toJson(Object object) {
         try {
-            return objectMapper.writeValueAsString(object);
+            if (object == null) return RaJson.mapper().writeValueAsString(null);
+            return RaJson.writer(object.getClass()).writeValueAsString(object);
         } catch (Exception e) {
             throw new RuntimeException("Failed to convert to JSON", e);
         }
@@ -1,24 +1,104 @@
 package io.github.kirstenali.racore.core.utils;
 
-import org.apache.hc.core5.http.NameValuePair;
-import org.apache.hc.core5.net.URIBuilder;
-
 import java.net.URI;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
 
+/**
+ * Single-pass parser for {@code application/x-www-form-urlencoded} query strings.
+ * <p>
+ * Names and values are sliced straight out of the raw query; percent-escapes and
+ * {@code +} are only decoded for the pairs that contain them. Malformed escapes are
+ * kept as literal text rather than failing the request.
+ * </p>
+ */
 public class QueryParameterUtil {
 
+    /**
+     * Parses the query of {@code uri}. When a name occurs more than once, the first value wins;
+     * use {@link #parseMultiValued(String)} to keep every value.
+     */
     public static Map<String, String> parseQueryParameters(URI uri) {
-        try {
-            URIBuilder uriBuilder = new URIBuilder(uri);
-            return uriBuilder.getQueryParams().stream()
-                    .collect(Collectors.toMap(
-                            NameValuePair::getName,
-                            param -> param.getValue() != null ? param.getValue() : ""
-                    ));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse query parameters", e);
+        return parseQueryParameters(uri.getRawQuery());
+    }
+
+    public static Map<String, String> parseQueryParameters(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return Collections.emptyMap();
+
+        Map<String, String> params = new HashMap<>();
+        forEachPair(rawQuery, params::putIfAbsent);
+        return params;
+    }
+
+    public static Map<String, List<String>> parseMultiValued(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return Collections.emptyMap();
+
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        forEachPair(rawQuery, (name, value) ->
+                params.computeIfAbsent(name, _ -> new ArrayList<>(1)).add(value));
+        return params;
+    }
+
+    private static void forEachPair(String query, BiConsumer<String, String> consumer) {
+        int length = query.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) end = length;
+
+            if (end > start) {
+                int eq = query.indexOf('=', start);
+                int nameEnd = (eq < 0 || eq > end) ? end : eq;
+
+                String name = decode(query, start, nameEnd);
+                String value = nameEnd < end ? decode(query, nameEnd + 1, end) : "";
+                if (!name.isEmpty()) consumer.accept(name, value);
+            }
+            start = end + 1;
+        }
+    }
+
+    private static String decode(String s, int from, int to) {
+        int i = from;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c == '%' || c == '+') break;
+            i++;
+        }
+        if (i == to) return s.substring(from, to);
+
+        StringBuilder out = new StringBuilder(to - from);
+        out.append(s, from, i);
+        byte[] bytes = null;
+
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c == '+') {
+                out.append(' ');
+                i++;
+            } else if (c == '%') {
+                if (bytes == null) bytes = new byte[(to - i) / 3 + 1];
+                int n = 0;
+                while (i + 2 < to && s.charAt(i) == '%') {
+                    int hi = Character.digit(s.charAt(i + 1), 16);
+                    int lo = Character.digit(s.charAt(i + 2), 16);
+                    if (hi < 0 || lo < 0) break;
+                    bytes[n++] = (byte) ((hi << 4) + lo);
+                    i += 3;
+                }
+                if (n > 0) {
+                    out.append(new String(bytes, 0, n, StandardCharsets.UTF_8));
+                } else {
+                    out.append('%');
+                    i++;
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
         }
+        return out.toString();
     }
 }
@@ -0,0 +1,132 @@
+package io.github.kirstenali.racore.core.utils;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.util.function.Consumer;
+
+/**
+ * The framework's shared Jackson configuration.
+ * <p>
+ * All request binding and response serialization goes through the single {@link ObjectMapper}
+ * held here. {@link ObjectReader}s and {@link ObjectWriter}s are cached per target class in
+ * {@link ClassValue}s so (de)serializers are resolved once per type instead of on every call,
+ * and entries go away with their class rather than pinning its class loader.
+ * </p>
+ * <p>
+ * On startup the mapper registers the Blackbird or Afterburner module
+ * if either is on the classpath ({@code json.bytecode-acceleration}, default {@code true}), and,
+ * with {@code json.find-modules=true}, any Jackson modules found via {@code ServiceLoader}.
+ * Types listed in {@code json.prewarm} (comma-separated class names) are resolved eagerly so
+ * the first requests after a deploy don't pay for it.
+ * </p>
+ */
+public final class RaJson {
+    private static final String[] ACCELERATORS = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+    private static volatile Codecs codecs = new Codecs(createDefaultMapper());
+
+    static {
+        prewarmFromConfig();
+    }
+
+    private RaJson() {}
+
+    public static ObjectMapper mapper() {
+        return codecs.mapper;
+    }
+
+    /**
+     * Applies {@code customizer} to a copy of the current mapper and makes it the shared one.
+     * Intended to be called once at startup, before routes are registered; cached readers and
+     * writers are discarded.
+     */
+    public static synchronized void configure(Consumer<ObjectMapper> customizer) {
+        ObjectMapper copy = codecs.mapper.copy();
+        customizer.accept(copy);
+        codecs = new Codecs(copy);
+    }
+
+    public static ObjectReader reader(Class<?> type) {
+        return codecs.readers.get(type);
+    }
+
+    public static ObjectWriter writer(Class<?> type) {
+        return codecs.writers.get(type);
+    }
+
+    /**
+     * Resolves and caches the reader and writer for each type ahead of the first request.
+     */
+    public static void prewarm(Class<?>... types) {
+        for (Class<?> type : types) {
+            reader(type);
+            writer(type);
+        }
+    }
+
+    private static ObjectMapper createDefaultMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        if (RaConfig.isJsonModuleDiscoveryEnabled()) {
+            objectMapper.findAndRegisterModules();
+        }
+        if (RaConfig.isJsonBytecodeAccelerationEnabled()) {
+            registerAccelerator(objectMapper);
+        }
+        return objectMapper;
+    }
+
+    private static void registerAccelerator(ObjectMapper objectMapper) {
+        for (String className : ACCELERATORS) {
+            try {
+                Class<?> moduleClass = Class.forName(className);
+                objectMapper.registerModule((Module) moduleClass.getDeclaredConstructor().newInstance());
+                return;
+            } catch (ClassNotFoundException ignored) {
+                // not on the classpath; try the next one
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Failed to register " + className + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void prewarmFromConfig() {
+        for (String className : RaConfig.getJsonPrewarmTypes()) {
+            try {
+                prewarm(Class.forName(className, true, Thread.currentThread().getContextClassLoader()));
+            } catch (ClassNotFoundException e) {
+                System.err.println("json.prewarm type not found: " + className);
+            }
+        }
+    }
+
+    /** A mapper with its reader and writer caches, swapped as one by {@link #configure}. */
+    private static final class Codecs {
+        final ObjectMapper mapper;
+
+        final ClassValue<ObjectReader> readers = new ClassValue<>() {
+            @Override
+            protected ObjectReader computeValue(Class<?> type) {
+                return mapper.readerFor(type);
+            }
+        };
+
+        final ClassValue<ObjectWriter> writers = new ClassValue<>() {
+            @Override
+            protected ObjectWriter computeValue(Class<?> type) {
+                return mapper.writerFor(type);
+            }
+        };
+
+        Codecs(ObjectMapper mapper) {
+            this.mapper = mapper;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.kirstenali.racore.core.utils;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Metadata of a file served as a static response, and optionally its contents.
+ *
+ * @param bytes         the file contents when held in memory, otherwise {@code null} and the
+ *                      body is streamed from disk
+ * @param precompressed codings for which a sibling file exists, e.g. {@code app.js.gz}
+ * @param gzipped       an in-memory gzip variant of {@code bytes}, or {@code null}
+ */
+public record StaticAsset(Path path, long size, long lastModified, String mimeType, String etag, byte[] bytes,
+                          Set<ContentEncoding> precompressed, StaticAsset gzipped) {
+
+    private static final boolean COMPRESSION_ENABLED = RaConfig.isCompressionEnabled();
+    private static final int COMPRESSION_THRESHOLD = RaConfig.getCompressionThreshold();
+
+    public static StaticAsset load(Path path, long maxInMemoryBytes) throws IOException {
+        long size = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+        String mimeType = Files.probeContentType(path);
+        if (mimeType == null) {
+            mimeType = "application/octet-stream";
+        }
+
+        byte[] bytes = size <= maxInMemoryBytes ? Files.readAllBytes(path) : null;
+        if (bytes != null && bytes.length != size) {
+            // changed while loading; don't trust the bytes
+            bytes = null;
+        }
+
+        String etag = FileUtils.entityTag(size, lastModified);
+        Set<ContentEncoding> precompressed = COMPRESSION_ENABLED ? findPrecompressed(path) : Set.of();
+        StaticAsset gzipped = null;
+
+        if (bytes != null && !precompressed.contains(ContentEncoding.GZIP)
+                && isCompressible(mimeType) && bytes.length >= COMPRESSION_THRESHOLD) {
+            byte[] encoded = CompressingOutputStream.compress(bytes, ContentEncoding.GZIP);
+            if (encoded.length < bytes.length) {
+                String gzipEtag = etag.substring(0, etag.length() - 1) + "-gz\"";
+                gzipped = new StaticAsset(path, encoded.length, lastModified, mimeType, gzipEtag, encoded, Set.of(), null);
+            }
+        }
+
+        return new StaticAsset(path, size, lastModified, mimeType, etag, bytes, precompressed, gzipped);
+    }
+
+    /**
+     * Returns a copy describing a precompressed sibling file, served under this asset's MIME type.
+     */
+    public StaticAsset asEncodingOf(StaticAsset original) {
+        return new StaticAsset(path, size, lastModified, original.mimeType(), etag, bytes, Set.of(), null);
+    }
+
+    public Set<ContentEncoding> availableEncodings() {
+        if (gzipped == null) return precompressed;
+
+        Set<ContentEncoding> encodings = EnumSet.of(ContentEncoding.GZIP);
+        encodings.addAll(precompressed);
+        return encodings;
+    }
+
+    private static Set<ContentEncoding> findPrecompressed(Path path) {
+        Set<ContentEncoding> found = null;
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            if (encoding.fileSuffix() != null && Files.isRegularFile(sibling(path, encoding))) {
+                if (found == null) found = EnumSet.noneOf(ContentEncoding.class);
+                found.add(encoding);
+            }
+        }
+        return found != null ? found : Set.of();
+    }
+
+    public static Path sibling(Path path, ContentEncoding encoding) {
+        return path.resolveSibling(path.getFileName() + encoding.fileSuffix());
+    }
+
+    private static boolean isCompressible(String mimeType) {
+        return mimeType.startsWith("text/")
+                || mimeType.endsWith("+json")
+                || mimeType.endsWith("+xml")
+                || mimeType.equals("application/javascript")
+                || mimeType.equals("application/json")
+                || mimeType.equals("application/xml");
+    }
+}
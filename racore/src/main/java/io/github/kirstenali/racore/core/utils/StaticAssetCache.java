@@ -0,0 +1,196 @@
+package io.github.kirstenali.racore.core.utils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Byte-weighted LRU cache of static assets below a root directory.
+ * <p>
+ * Each entry keeps the file's size, mtime, MIME type and ETag; files up to
+ * {@code maxEntryBytes} also keep their contents. Entries are invalidated by a
+ * {@link WatchService} on the whole directory tree, so caching is only enabled when the
+ * root exists and can be watched. Paths outside the root are never cached.
+ * </p>
+ */
+public final class StaticAssetCache {
+    private static final long ENTRY_OVERHEAD = 256;
+
+    private final Path root;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<Path, StaticAsset> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private WatchService watcher;
+
+    /**
+     * A cache that stores nothing; {@link #get(Path)} loads every asset from disk.
+     */
+    public static StaticAssetCache disabled() {
+        return new StaticAssetCache(Path.of(""), 0, 0);
+    }
+
+    public StaticAssetCache(Path root, long maxBytes, long maxEntryBytes) {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+
+        if (maxBytes > 0 && Files.isDirectory(this.root)) {
+            startWatcher();
+        }
+    }
+
+    public boolean isEnabled() {
+        return watcher != null;
+    }
+
+    /**
+     * Returns the cached asset for {@code path}, or {@code null} if it is not cached.
+     */
+    public StaticAsset getIfPresent(Path path) {
+        if (!isEnabled()) return null;
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (this) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Returns the asset for {@code path}, loading and caching it on a miss.
+     */
+    public StaticAsset get(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        if (!isEnabled() || !key.startsWith(root)) {
+            return StaticAsset.load(path, 0);
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            StaticAsset cached = entries.get(key);
+            if (cached != null) return cached;
+            loadGeneration = generation;
+        }
+
+        StaticAsset asset = StaticAsset.load(path, maxEntryBytes);
+        synchronized (this) {
+            // skip the insert if anything was invalidated while we were reading the file
+            if (generation == loadGeneration) {
+                put(key, asset);
+            }
+        }
+        return asset;
+    }
+
+    private void put(Path key, StaticAsset asset) {
+        StaticAsset previous = entries.put(key, asset);
+        if (previous != null) weight -= weigh(previous);
+        weight += weigh(asset);
+
+        Iterator<StaticAsset> eldest = entries.values().iterator();
+        while (weight > maxBytes && eldest.hasNext()) {
+            weight -= weigh(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    public synchronized void invalidate(Path path) {
+        generation++;
+        Iterator<Map.Entry<Path, StaticAsset>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, StaticAsset> e = it.next();
+            if (e.getKey().startsWith(path)) {
+                weight -= weigh(e.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    private static long weigh(StaticAsset asset) {
+        long weight = ENTRY_OVERHEAD + (asset.bytes() != null ? asset.bytes().length : 0);
+        return asset.gzipped() != null ? weight + weigh(asset.gzipped()) : weight;
+    }
+
+    private void startWatcher() {
+        try {
+            watcher = root.getFileSystem().newWatchService();
+            registerTree(root);
+        } catch (IOException e) {
+            System.err.println("Static asset cache disabled; cannot watch " + root + ": " + e.getMessage());
+            watcher = null;
+            return;
+        }
+
+        Thread thread = new Thread(this::watchLoop, "racore-static-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void invalidateCompressedOriginal(Path changed) {
+        String name = changed.getFileName().toString();
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            String suffix = encoding.fileSuffix();
+            if (suffix != null && name.endsWith(suffix) && name.length() > suffix.length()) {
+                invalidate(changed.resolveSibling(name.substring(0, name.length() - suffix.length())));
+            }
+        }
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                d.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    clear();
+                    continue;
+                }
+
+                Path changed = dir.resolve((Path) event.context()).toAbsolutePath().normalize();
+                invalidate(changed);
+                invalidateCompressedOriginal(changed);
+
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                    try {
+                        registerTree(changed);
+                    } catch (IOException e) {
+                        // can no longer guarantee freshness for this subtree
+                        clear();
+                    }
+                }
+            }
+
+            if (!key.reset()) {
+                invalidate(dir.toAbsolutePath().normalize());
+            }
+        }
+    }
+}
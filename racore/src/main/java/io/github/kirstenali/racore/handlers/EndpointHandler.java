@@ -1,9 +1,18 @@
 package io.github.kirstenali.racore.handlers;
 
 import io.github.kirstenali.racore.core.requests.Request;
+import io.github.kirstenali.racore.core.routing.HttpMethod;
 
+import java.time.Duration;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 
-public record EndpointHandler(String method, Pattern pattern, Function<Request, ?> callback) {
+/**
+ * A registered route. {@code timeout} bounds how long an asynchronous handler's
+ * {@link java.util.concurrent.CompletionStage} may take; {@code null} means no limit.
+ */
+public record EndpointHandler(HttpMethod method, String path, Function<Request, ?> callback, Duration timeout) {
+
+    public EndpointHandler(HttpMethod method, String path, Function<Request, ?> callback) {
+        this(method, path, callback, null);
+    }
 }
@@ -12,12 +12,13 @@ public final class SessionInterceptor implements Interceptor {
 
     @Override
     public boolean preHandle(HttpExchange exchange) {
-        sessions.loadOrCreate(exchange);
+        sessions.loadLazily(exchange);
         return true;
     }
 
     @Override
     public Object postHandle(Object response, HttpExchange exchange) {
+        sessions.save(exchange);
         return response;
     }
 }
\ No newline at end of file
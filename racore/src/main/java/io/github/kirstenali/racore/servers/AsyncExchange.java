@@ -0,0 +1,25 @@
+package io.github.kirstenali.racore.servers;
+
+/**
+ * Implemented by exchanges whose server ends the request as soon as the dispatching thread
+ * returns, such as servlet containers. Before finishing a response on another thread, e.g. for
+ * an async handler or a long-lived stream, the framework calls {@link #startAsync()} so the
+ * server keeps the request open and gets its thread back. The response then ends when the
+ * exchange or its response body is closed.
+ */
+public interface AsyncExchange {
+
+    /**
+     * Detaches the exchange from the dispatching thread. Calling it again has no effect.
+     *
+     * @return {@code false} if the server cannot do this, in which case the response must be
+     *         finished before the dispatching thread returns
+     */
+    boolean startAsync();
+
+    /**
+     * Ends a response that failed after its headers were sent by dropping the connection, so the
+     * client does not take the truncated body for a complete one.
+     */
+    void abort(Throwable cause);
+}
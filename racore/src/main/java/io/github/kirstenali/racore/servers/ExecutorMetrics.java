@@ -0,0 +1,13 @@
+package io.github.kirstenali.racore.servers;
+
+/**
+ * Point-in-time snapshot of the request executor.
+ *
+ * @param mode      the configured {@code server.executor} mode
+ * @param active    tasks currently running
+ * @param queued    tasks accepted but not yet started
+ * @param completed tasks that have finished, successfully or not
+ * @param rejected  tasks the executor refused because it was saturated; they were not run
+ */
+public record ExecutorMetrics(String mode, long active, long queued, long completed, long rejected) {
+}
@@ -0,0 +1,61 @@
+package io.github.kirstenali.racore.servers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Executor} wrapper that counts submitted, started, completed and rejected tasks.
+ * <p>
+ * Rejected tasks are counted and the {@link RejectedExecutionException} is rethrown, so
+ * handlers never run on the submitting thread. For the JDK {@code HttpServer} that is the
+ * dispatcher thread, which then closes only the rejected connection.
+ * </p>
+ */
+public final class InstrumentedExecutor implements Executor {
+    private final String mode;
+    private final ExecutorService delegate;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public InstrumentedExecutor(String mode, ExecutorService delegate) {
+        this.mode = mode;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submitted.increment();
+        try {
+            delegate.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            submitted.decrement();
+            if (!delegate.isShutdown()) rejected.increment();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task) {
+        started.increment();
+        try {
+            task.run();
+        } finally {
+            completed.increment();
+        }
+    }
+
+    public ExecutorMetrics metrics() {
+        long done = completed.sum();
+        long running = started.sum() - done;
+        long queued = submitted.sum() - started.sum();
+        return new ExecutorMetrics(mode, Math.max(0, running), Math.max(0, queued), done, rejected.sum());
+    }
+
+    public ExecutorService delegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.kirstenali.racore.servers;
+
+import io.github.kirstenali.racore.config.RaConfig;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+final class ServerExecutors {
+    private ServerExecutors() {}
+
+    static InstrumentedExecutor fromConfig() {
+        String mode = RaConfig.getServerExecutor();
+        ExecutorService executor = switch (mode) {
+            case "virtual" -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("racore-virtual-", 0).factory());
+            case "bounded" -> bounded(
+                    RaConfig.getExecutorCoreThreads(),
+                    RaConfig.getExecutorMaxThreads(),
+                    RaConfig.getExecutorQueueCapacity());
+            case "forkjoin" -> Executors.newWorkStealingPool(RaConfig.getExecutorParallelism());
+            case "cached" -> Executors.newCachedThreadPool(platformThreads());
+            default -> {
+                System.err.println("Unknown server.executor '" + mode + "'; using cached thread pool.");
+                mode = "cached";
+                yield Executors.newCachedThreadPool(platformThreads());
+            }
+        };
+        return new InstrumentedExecutor(mode, executor);
+    }
+
+    private static ExecutorService bounded(int core, int max, int queueCapacity) {
+        int maxThreads = Math.max(core, max);
+        return new ThreadPoolExecutor(
+                core, maxThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                platformThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static ThreadFactory platformThreads() {
+        return Thread.ofPlatform().name("racore-worker-", 0).factory();
+    }
+}
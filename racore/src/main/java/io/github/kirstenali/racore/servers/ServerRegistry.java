@@ -5,11 +5,11 @@ import io.github.kirstenali.racore.config.RaConfig;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 public class ServerRegistry {
     private static Function<Integer, HttpServer> serverFactory;
+    private static volatile InstrumentedExecutor executor;
 
     public static void register(Function<Integer, HttpServer> factory) {
         serverFactory = factory;
@@ -20,10 +20,20 @@ public class ServerRegistry {
         return (serverFactory != null) ? serverFactory.apply(port) : createDefaultHttpServer(port);
     }
 
+    /**
+     * Returns a snapshot of the default JDK server's request executor, or {@code null}
+     * if the default server has not been created (e.g. a custom factory or servlet backend is in use).
+     */
+    public static ExecutorMetrics getExecutorMetrics() {
+        InstrumentedExecutor current = executor;
+        return current != null ? current.metrics() : null;
+    }
+
     private static HttpServer createDefaultHttpServer(int port) {
         try {
             HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
-            server.setExecutor(Executors.newCachedThreadPool());
+            executor = ServerExecutors.fromConfig();
+            server.setExecutor(executor);
             return server;
         } catch (IOException e) {
             throw new RuntimeException("Failed to create HttpServer on port " + port, e);
@@ -1,18 +1,51 @@
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import io.github.kirstenali.racore.config.RaConfig;
+import io.github.kirstenali.racore.core.metrics.Phase;
+import io.github.kirstenali.racore.core.metrics.RequestMetrics;
+import io.github.kirstenali.racore.core.metrics.RouteMetrics;
+import io.github.kirstenali.racore.core.session.InMemorySessionStore;
+import io.github.kirstenali.racore.core.session.MappedFileSessionStore;
+import io.github.kirstenali.racore.core.session.Session;
+import io.github.kirstenali.racore.core.session.SessionCookieCodec;
+import io.github.kirstenali.racore.core.session.SessionStats;
+import io.github.kirstenali.racore.core.session.SessionStore;
+import io.github.kirstenali.racore.core.utils.RaJson;
+import io.github.kirstenali.racore.servers.ExecutorMetrics;
+import io.github.kirstenali.racore.servers.ServerRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
+import java.net.Socket;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,6 +103,20 @@ public class IntegrationTest {
         assertTrue(res.body().contains("1"));
     }
 
+    @Test
+    @DisplayName("Repeated and percent-encoded query params are decoded and kept in order")
+    void getQueryParameters_multiValued() throws Exception {
+        var res = send(HttpRequest.newBuilder(
+                URI.create(BASE_URL + "/getQueryParameters/tags?tag=a&tag=b%20c&tag=d+e&tag=%C3%A9")).GET().build());
+        assertEquals(200, res.statusCode());
+        assertEquals("[\"a\",\"b c\",\"d e\",\"é\"]", res.body());
+
+        var duplicate = send(HttpRequest.newBuilder(
+                URI.create(BASE_URL + "/getQueryParameters?x=1&x=2")).GET().build());
+        assertEquals(200, duplicate.statusCode());
+        assertTrue(duplicate.body().contains("\"x\":\"1\""));
+    }
+
     @Test
     @DisplayName("POST /addPerson parses JSON body into Person")
     void post_addPerson() throws Exception {
@@ -83,6 +130,40 @@ public class IntegrationTest {
         assertTrue(res.body().contains("19"));
     }
 
+    @Test
+    @DisplayName("JSON bodies over server.max-body-size get 413, whether their length is declared or chunked")
+    void post_bodyTooLarge() throws Exception {
+        // Only the headers are sent: the server must reject the declared length before reading the body.
+        String head = "POST /addPerson HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + (RaConfig.getMaxBodySize() + 1) + "\r\n\r\n";
+        try (Socket socket = new Socket("localhost", 8080)) {
+            socket.setSoTimeout(5_000);
+            socket.getOutputStream().write(head.getBytes(StandardCharsets.US_ASCII));
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertTrue(reader.readLine().startsWith("HTTP/1.1 413 "));
+        }
+
+        String json = "{\"name\":\"" + "x".repeat((int) RaConfig.getMaxBodySize()) + "\",\"age\":1}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        var chunked = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/addPerson"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(bytes)))
+                .build());
+        assertEquals(413, chunked.statusCode());
+    }
+
+    @Test
+    @DisplayName("POST /importPeople streams a JSON array element by element")
+    void post_importPeople() throws Exception {
+        String json = "[{\"name\":\"Ann\",\"age\":1},\n{\"name\":\"Ben\",\"age\":2}]";
+        var res = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/importPeople"))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+        assertEquals(200, res.statusCode());
+        assertTrue(res.body().contains("Imported: [Ann, Ben]"));
+    }
+
     @Test
     @DisplayName("PUT /updatePerson updates Person")
     void put_updatePerson() throws Exception {
@@ -119,6 +200,297 @@ public class IntegrationTest {
         assertTrue(res.body().toLowerCase().contains("deleted"));
     }
 
+    @Test
+    @DisplayName("Static route segments take precedence over path variables")
+    void routing_staticBeforeParam() throws Exception {
+        var latest = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/routes/latest")).GET().build());
+        assertEquals(200, latest.statusCode());
+        assertTrue(latest.body().contains("static"));
+
+        var byId = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/routes/7")).GET().build());
+        assertEquals(200, byId.statusCode());
+        assertTrue(byId.body().contains("param:7"));
+    }
+
+    @Test
+    @DisplayName("GET and POST on the same path dispatch to their own handlers")
+    void routing_methodTable() throws Exception {
+        var get = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people")).GET().build());
+        assertEquals(200, get.statusCode());
+        assertTrue(get.body().contains("listed people"));
+
+        var post = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+        assertEquals(200, post.statusCode());
+        assertTrue(post.body().contains("created person"));
+    }
+
+    @Test
+    @DisplayName("Large JSON responses are streamed in full; small ones carry Content-Length")
+    void json_largeAndSmallResponses() throws Exception {
+        var bulk = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people/bulk")).GET().build());
+        assertEquals(200, bulk.statusCode());
+        assertTrue(bulk.body().startsWith("[{"));
+        assertTrue(bulk.body().endsWith("{\"name\":\"p19999\",\"age\":19999}]"));
+
+        var small = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/1")).GET().build());
+        assertEquals(String.valueOf(small.body().getBytes(StandardCharsets.UTF_8).length),
+                small.headers().firstValue("Content-Length").orElse(null));
+    }
+
+    @Test
+    @DisplayName("Static files honour single, multiple and unsatisfiable Range requests")
+    void staticFile_ranges() throws Exception {
+        URI uri = URI.create(BASE_URL + "/files/sample.txt");
+
+        var full = send(HttpRequest.newBuilder(uri).GET().build());
+        assertEquals(200, full.statusCode());
+        assertEquals("0123456789abcdefghijklmnopqrstuvwxyz", full.body());
+        assertEquals("bytes", full.headers().firstValue("Accept-Ranges").orElse(null));
+
+        var single = send(HttpRequest.newBuilder(uri).header("Range", "bytes=10-15").GET().build());
+        assertEquals(206, single.statusCode());
+        assertEquals("abcdef", single.body());
+        assertEquals("bytes 10-15/36", single.headers().firstValue("Content-Range").orElse(null));
+
+        var suffix = send(HttpRequest.newBuilder(uri).header("Range", "bytes=-3").GET().build());
+        assertEquals(206, suffix.statusCode());
+        assertEquals("xyz", suffix.body());
+
+        var multi = send(HttpRequest.newBuilder(uri).header("Range", "bytes=0-1,34-").GET().build());
+        assertEquals(206, multi.statusCode());
+        assertTrue(multi.headers().firstValue("Content-Type").orElse("").startsWith("multipart/byteranges"));
+        assertTrue(multi.body().contains("Content-Range: bytes 0-1/36\r\n\r\n01"));
+        assertTrue(multi.body().contains("Content-Range: bytes 34-35/36\r\n\r\nyz"));
+
+        var unsatisfiable = send(HttpRequest.newBuilder(uri).header("Range", "bytes=100-").GET().build());
+        assertEquals(416, unsatisfiable.statusCode());
+
+        var staleIfRange = send(HttpRequest.newBuilder(uri)
+                .header("Range", "bytes=0-1")
+                .header("If-Range", "\"stale\"")
+                .GET().build());
+        assertEquals(200, staleIfRange.statusCode());
+
+        String etag = full.headers().firstValue("ETag").orElseThrow();
+        var freshIfRange = send(HttpRequest.newBuilder(uri)
+                .header("Range", "bytes=0-1")
+                .header("If-Range", etag)
+                .GET().build());
+        assertEquals(206, freshIfRange.statusCode());
+        assertEquals("01", freshIfRange.body());
+    }
+
+    @Test
+    @DisplayName("Static files answer conditional GETs with 304")
+    void staticFile_conditionalGet() throws Exception {
+        URI uri = URI.create(BASE_URL + "/files/sample.txt");
+        var full = send(HttpRequest.newBuilder(uri).GET().build());
+        String etag = full.headers().firstValue("ETag").orElseThrow();
+        String lastModified = full.headers().firstValue("Last-Modified").orElseThrow();
+
+        var byEtag = send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).GET().build());
+        assertEquals(304, byEtag.statusCode());
+        assertEquals("", byEtag.body());
+
+        var byDate = send(HttpRequest.newBuilder(uri).header("If-Modified-Since", lastModified).GET().build());
+        assertEquals(304, byDate.statusCode());
+
+        var changed = send(HttpRequest.newBuilder(uri).header("If-None-Match", "\"other\"").GET().build());
+        assertEquals(200, changed.statusCode());
+    }
+
+    @Test
+    @DisplayName("Responses are compressed when accepted: JSON above the threshold and precompressed static files")
+    void compression() throws Exception {
+        var bulk = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people/bulk"))
+                .header("Accept-Encoding", "gzip").GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("gzip", bulk.headers().firstValue("Content-Encoding").orElse(null));
+        String json = gunzip(bulk.body());
+        assertTrue(json.endsWith("{\"name\":\"p19999\",\"age\":19999}]"));
+
+        var small = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/1"))
+                .header("Accept-Encoding", "gzip").GET().build());
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+        assertTrue(small.body().contains("Alice"));
+
+        var file = client.send(HttpRequest.newBuilder(URI.create(BASE_URL + "/files/sample.txt"))
+                .header("Accept-Encoding", "br;q=0, gzip").GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("gzip", file.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("0123456789abcdefghijklmnopqrstuvwxyz", gunzip(file.body()));
+    }
+
+    private static String gunzip(java.io.InputStream body) throws Exception {
+        try (var in = new GZIPInputStream(body)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Unregistered methods get 405 with Allow; OPTIONS is answered from the route table")
+    void routing_methodNotAllowed() throws Exception {
+        var delete = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people")).DELETE().build());
+        assertEquals(405, delete.statusCode());
+        assertEquals("GET, HEAD, POST, OPTIONS", delete.headers().firstValue("Allow").orElse(null));
+
+        var options = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people"))
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .build());
+        assertEquals(204, options.statusCode());
+        assertEquals("GET, HEAD, POST, OPTIONS", options.headers().firstValue("Allow").orElse(null));
+    }
+
+    @Test
+    @DisplayName("HEAD runs the GET handler and sends its status and headers without a body")
+    void routing_head() throws Exception {
+        for (String path : List.of("/people", "/files/sample.txt", "/no-such-file.html")) {
+            URI uri = URI.create(BASE_URL + path);
+            var get = send(HttpRequest.newBuilder(uri).GET().build());
+            var head = send(HttpRequest.newBuilder(uri).HEAD().build());
+
+            assertEquals(get.statusCode(), head.statusCode(), path);
+            assertEquals(get.headers().firstValue("Content-Type"), head.headers().firstValue("Content-Type"), path);
+            assertEquals(get.headers().firstValue("Content-Length"), head.headers().firstValue("Content-Length"), path);
+            assertEquals("", head.body(), path);
+        }
+
+        int streams = TestApp.eventStreams.get();
+        var events = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/events"))
+                .timeout(Duration.ofSeconds(2)).HEAD().build());
+        assertEquals(200, events.statusCode());
+        assertEquals("text/event-stream; charset=utf-8", events.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(streams, TestApp.eventStreams.get(), "HEAD must not run the event stream");
+    }
+
+    @Test
+    @DisplayName("A body that fails after its headers were sent ends in a dropped connection, not a truncated 200")
+    void failedBodiesAreNotCompleted() {
+        for (String path : List.of("/people/broken", "/async/broken", "/stream/broken")) {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(BASE_URL + path)).timeout(Duration.ofSeconds(5)).GET().build();
+            assertThrows(java.io.IOException.class, () -> send(req), path);
+        }
+    }
+
+    @Test
+    @DisplayName("Requests are counted per route template and phase, and exposed in Prometheus format")
+    void requestMetrics() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/" + i)).GET().build());
+        }
+        send(HttpRequest.newBuilder(URI.create(BASE_URL + "/people")).DELETE().build());
+
+        // requests are recorded once the response is sent, so the client can get ahead of them
+        RouteMetrics person = null;
+        for (int i = 0; i < 50 && (person == null || person.requests() < 3); i++) {
+            if (person != null) Thread.sleep(20);
+            person = RequestMetrics.snapshot().stream()
+                    .filter(m -> m.method().equals("GET") && m.route().equals("/getPerson/{id}"))
+                    .findFirst().orElse(null);
+        }
+        assertNotNull(person);
+        assertTrue(person.statuses().getOrDefault(200, 0L) >= 3);
+        for (Phase phase : Phase.values()) {
+            assertTrue(person.latencies().get(phase).count() >= 3, phase.name());
+        }
+        assertTrue(person.latencies().get(Phase.TOTAL).percentileNanos(0.99) > 0);
+
+        var metrics = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/metrics")).GET().build());
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        assertTrue(metrics.body().contains("racore_requests_total{method=\"GET\",route=\"/getPerson/{id}\",status=\"200\"}"));
+        assertTrue(metrics.body().contains("racore_requests_total{method=\"*\",route=\"unrouted\",status=\"405\"}"));
+        assertTrue(metrics.body().contains(
+                "racore_request_duration_seconds_bucket{method=\"GET\",route=\"/getPerson/{id}\",phase=\"serialization\",le=\"+Inf\"}"));
+    }
+
+    @Test
+    @DisplayName("Requests emit JFR events while a recording enables them")
+    void jfrEvents() throws Exception {
+        Map<String, RecordedEvent> seen = new ConcurrentHashMap<>();
+        try (var recording = new RecordingStream()) {
+            for (String name : List.of("Request", "Routing", "Serialization")) {
+                recording.enable("io.github.kirstenali.racore." + name);
+            }
+            recording.onEvent(event -> {
+                if ("/getPerson/{id}".equals(event.getString("route"))) {
+                    seen.putIfAbsent(event.getEventType().getName(), event);
+                }
+            });
+            recording.startAsync();
+
+            // events reach the stream about once a second
+            for (int i = 0; i < 50 && seen.size() < 3; i++) {
+                send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/" + i)).GET().build());
+                Thread.sleep(200);
+            }
+        }
+
+        RecordedEvent request = seen.get("io.github.kirstenali.racore.Request");
+        assertNotNull(request);
+        assertEquals(200, request.getInt("status"));
+        assertTrue(request.getString("path").startsWith("/getPerson/"));
+        assertNotNull(seen.get("io.github.kirstenali.racore.Routing"));
+        assertEquals(TestApp.Person.class.getName(),
+                seen.get("io.github.kirstenali.racore.Serialization").getClass("type").getName());
+    }
+
+    @Test
+    @DisplayName("Default server exposes executor metrics")
+    void executorMetrics() throws Exception {
+        send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getPerson/1")).GET().build());
+
+        ExecutorMetrics metrics = ServerRegistry.getExecutorMetrics();
+        assertNotNull(metrics);
+        assertEquals("cached", metrics.mode());
+        assertTrue(metrics.completed() > 0);
+        assertEquals(0, metrics.rejected());
+    }
+
+    @Test
+    @DisplayName("POST /sendForm parses multipart form fields on demand")
+    void post_sendForm() throws Exception {
+        String boundary = "racoreBoundary";
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"name\"\r\n\r\n"
+                + "John\r\n"
+                + "--" + boundary + "--\r\n";
+
+        var res = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/sendForm"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+        assertEquals(200, res.statusCode());
+        assertTrue(res.body().contains("name=John"));
+    }
+
+    @Test
+    @DisplayName("POST /streamUpload streams multipart parts and enforces the part size limit")
+    void post_streamUpload() throws Exception {
+        String boundary = "racoreBoundary";
+        IntFunction<String> body = size -> "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"note\"\r\n\r\n"
+                + "hello\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"data\"; filename=\"data.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n"
+                + "x".repeat(size) + "\r\n"
+                + "--" + boundary + "--\r\n";
+
+        var res = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/streamUpload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body.apply(600)))
+                .build());
+        assertEquals(200, res.statusCode());
+        assertEquals("{\"note\":5,\"data\":600}", res.body());
+
+        var tooLarge = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/streamUpload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body.apply(4096)))
+                .build());
+        assertEquals(413, tooLarge.statusCode());
+    }
+
     private static HttpResponse<String> send(HttpRequest req) throws Exception {
         return client.send(req, HttpResponse.BodyHandlers.ofString());
     }
@@ -172,6 +544,189 @@ public class IntegrationTest {
         assertNotEquals(cookieValueOnly(sid1), cookieValueOnly(sid2), "Different clients should get different SID");
     }
 
+    @Test
+    @DisplayName("Session store evicts least recently used sessions and reaps expired ones")
+    void sessionStore_evictionAndReaping() throws Exception {
+        try (SessionStore store = new InMemorySessionStore(Duration.ofMillis(50), 16, Duration.ofMillis(160))) {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < 200; i++) {
+                store.putNew(new Session("s" + i, now));
+            }
+
+            SessionStats afterPut = store.stats();
+            assertTrue(afterPut.live() <= 16, "Store should stay within its bound, was " + afterPut.live());
+            assertEquals(200, afterPut.live() + afterPut.evicted());
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (store.stats().live() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            SessionStats afterReap = store.stats();
+            assertEquals(0, afterReap.live(), "Reaper should remove idle sessions");
+            assertEquals(afterPut.live(), afterReap.expired());
+        }
+    }
+
+    @Test
+    @DisplayName("Mapped file session store restores live sessions after reopening, but not evicted ones")
+    void sessionStore_persistsAcrossRestart() throws Exception {
+        Path file = Files.createTempDirectory("racore-sessions").resolve("sessions.log");
+        long now = System.currentTimeMillis();
+
+        try (SessionStore store = new MappedFileSessionStore(file, Duration.ofMinutes(30), 1_000, Duration.ZERO)) {
+            for (int i = 0; i < 500; i++) {
+                Session session = store.putNew(new Session("s" + i, now));
+                session.put("count", i);
+                session.put("payload", "x".repeat(4096));
+                store.save(session);
+            }
+            store.remove("s0");
+        }
+
+        try (SessionStore store = new MappedFileSessionStore(file, Duration.ofMinutes(30), 1_000, Duration.ZERO)) {
+            assertEquals(499, store.stats().live());
+            assertTrue(store.getIfPresentAndNotExpired("s0", now).isEmpty());
+            Session restored = store.getIfPresentAndNotExpired("s42", now).orElseThrow();
+            assertEquals(42, restored.get("count"));
+
+            assertFalse(restored.isDirty(), "Restored sessions start clean");
+            restored.touch(restored.lastAccessMs() + 1);
+            assertFalse(restored.isDirty(), "Touches within the granularity are coalesced");
+            restored.put("count", 43);
+            assertTrue(restored.markClean());
+        }
+
+        Path small = Files.createTempDirectory("racore-sessions").resolve("sessions.log");
+        long live;
+        try (MappedFileSessionStore store = new MappedFileSessionStore(small, Duration.ofMinutes(30), 16, Duration.ZERO)) {
+            for (int i = 0; i < 100; i++) {
+                store.save(store.putNew(new Session("e" + i, now)));
+                store.flush();
+            }
+            live = store.stats().live();
+            assertTrue(store.stats().evicted() > 0);
+        }
+        try (SessionStore store = new MappedFileSessionStore(small, Duration.ofMinutes(30), 1_000, Duration.ZERO)) {
+            assertEquals(live, store.stats().live(), "Evicted sessions are not restored");
+        }
+    }
+
+    @Test
+    @DisplayName("Async handlers respond on completion and fail with 503 on timeout")
+    void asyncHandlers() throws Exception {
+        HttpResponse<String> ok = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/async/person")).GET().build());
+        assertEquals(200, ok.statusCode());
+        assertTrue(ok.body().contains("\"name\":\"Async\""), ok.body());
+
+        HttpResponse<String> slow = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/async/slow")).GET().build());
+        assertEquals(503, slow.statusCode());
+    }
+
+    @Test
+    @DisplayName("Requests that never write to the session get no session cookie")
+    void sessionCookie_notIssuedForReadOnlyRequests() throws Exception {
+        HttpResponse<String> r = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/getQueryParameters")).GET().build());
+        assertEquals(200, r.statusCode());
+        assertNull(extractCookie(r.headers(), "SID"));
+    }
+
+    @Test
+    @DisplayName("A session first written after the response was sent is not stored")
+    void session_notStoredAfterResponseSent() throws Exception {
+        HttpResponse<String> r = send(HttpRequest.newBuilder(URI.create(BASE_URL + "/stream/session")).GET().build());
+        assertEquals(200, r.statusCode());
+        assertNull(extractCookie(r.headers(), "SID"));
+        assertNotNull(TestApp.lateSessionId);
+        assertTrue(TestApp.sessionStore.getIfPresentAndNotExpired(TestApp.lateSessionId, System.currentTimeMillis()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Session cookie codec round-trips, rejects tampering and unlisted classes, and accepts rotated keys")
+    void sessionCookieCodec() {
+        byte[] oldKey = "old-secret-0123456789".getBytes(StandardCharsets.UTF_8);
+        byte[] newKey = "new-secret-0123456789".getBytes(StandardCharsets.UTF_8);
+
+        for (boolean encrypt : new boolean[]{false, true}) {
+            Session session = new Session("abc", System.currentTimeMillis());
+            session.put("user", "kirsten");
+            session.put("count", 7);
+
+            String cookie = new SessionCookieCodec(List.of(oldKey), encrypt).encode(session);
+            SessionCookieCodec rotated = new SessionCookieCodec(List.of(newKey, oldKey), encrypt);
+
+            Session decoded = rotated.decode(cookie).orElseThrow();
+            assertEquals("abc", decoded.id());
+            assertEquals("kirsten", decoded.get("user"));
+            assertEquals(7, decoded.get("count"));
+
+            int mid = cookie.length() / 2;
+            char flipped = cookie.charAt(mid) == 'A' ? 'B' : 'A';
+            String tampered = cookie.substring(0, mid) + flipped + cookie.substring(mid + 1);
+            assertTrue(rotated.decode(tampered).isEmpty());
+            assertTrue(new SessionCookieCodec(List.of(newKey), encrypt).decode(cookie).isEmpty());
+        }
+
+        Session untrusted = new Session("u", System.currentTimeMillis());
+        untrusted.put("counter", new java.util.concurrent.atomic.AtomicInteger(1));
+        SessionCookieCodec codec = new SessionCookieCodec(List.of(newKey), false);
+        assertTrue(codec.decode(codec.encode(untrusted)).isEmpty(), "Classes outside the allow list are rejected");
+
+        Session large = new Session("big", System.currentTimeMillis());
+        large.put("blob", new java.util.Random(1).ints(2000).boxed().toList().toString());
+        assertThrows(IllegalStateException.class, () -> new SessionCookieCodec(List.of(newKey), false).encode(large));
+    }
+
+    @Test
+    @DisplayName("RaJson.configure replaces cached readers and writers, and prewarm resolves them before first use")
+    void rajsonConfigureAndPrewarm() throws Exception {
+        assertEquals("{\"firstName\":\"Ada\"}", RaJson.writer(JsonSample.class).writeValueAsString(new JsonSample("Ada")));
+
+        AtomicInteger serializers = new AtomicInteger();
+        AtomicInteger deserializers = new AtomicInteger();
+        SimpleModule counting = new SimpleModule("counting")
+                .setSerializerModifier(new BeanSerializerModifier() {
+                    @Override
+                    public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription desc, JsonSerializer<?> serializer) {
+                        if (desc.getBeanClass() == JsonPrewarmed.class) serializers.incrementAndGet();
+                        return serializer;
+                    }
+                })
+                .setDeserializerModifier(new BeanDeserializerModifier() {
+                    @Override
+                    public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription desc, JsonDeserializer<?> deserializer) {
+                        if (desc.getBeanClass() == JsonPrewarmed.class) deserializers.incrementAndGet();
+                        return deserializer;
+                    }
+                });
+
+        RaJson.configure(m -> m.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).registerModule(counting));
+        try {
+            assertEquals("{\"first_name\":\"Ada\"}", RaJson.writer(JsonSample.class).writeValueAsString(new JsonSample("Ada")));
+            assertEquals(new JsonSample("Bob"), RaJson.reader(JsonSample.class).readValue("{\"first_name\":\"Bob\"}"));
+
+            assertEquals(0, serializers.get());
+            RaJson.prewarm(JsonPrewarmed.class);
+            assertEquals(1, serializers.get());
+            assertEquals(1, deserializers.get());
+
+            var writer = RaJson.writer(JsonPrewarmed.class);
+            var reader = RaJson.reader(JsonPrewarmed.class);
+            assertEquals("{\"some_value\":1}", writer.writeValueAsString(new JsonPrewarmed(1)));
+            assertEquals(new JsonPrewarmed(2), reader.readValue("{\"some_value\":2}"));
+            assertSame(writer, RaJson.writer(JsonPrewarmed.class));
+            assertSame(reader, RaJson.reader(JsonPrewarmed.class));
+            assertEquals(1, serializers.get());
+            assertEquals(1, deserializers.get());
+        } finally {
+            RaJson.configure(m -> m.setPropertyNamingStrategy(null));
+        }
+    }
+
+    public record JsonSample(String firstName) {}
+
+    public record JsonPrewarmed(int someValue) {}
+
     @Test
     @DisplayName("GET /stream streams chunks incrementally")
     void streaming_chunks() throws Exception {
@@ -1,12 +1,28 @@
 import com.sun.net.httpserver.HttpExchange;
 import io.github.kirstenali.racore.core.requests.Request;
+import io.github.kirstenali.racore.core.responses.SseResponse;
 import io.github.kirstenali.racore.core.responses.StreamingResponse;
 import io.github.kirstenali.racore.core.utils.CookieUtil;
 import io.github.kirstenali.racore.interceptors.Interceptor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
-
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.stream.Stream;
+
+import io.github.kirstenali.racore.core.session.InMemorySessionStore;
 import io.github.kirstenali.racore.core.session.Session;
 import io.github.kirstenali.racore.core.session.SessionManager;
 import io.github.kirstenali.racore.core.session.SessionStore;
@@ -16,8 +32,8 @@ import static io.github.kirstenali.racore.core.Endpoint.*;
 
 public class TestApp {
 
-    private static final SessionStore sessionStore =
-            new SessionStore(Duration.ofMinutes(30));
+    static final SessionStore sessionStore =
+            new InMemorySessionStore(Duration.ofMinutes(30));
 
     private static final CookieUtil.CookieOptions cookieOptions =
             new CookieUtil.CookieOptions(
@@ -34,6 +50,7 @@ public class TestApp {
     public static void startServer() {
         defineRoutes();
         registerInterceptors();
+        serveMetrics();
         serveStatic();
     }
 
@@ -41,14 +58,27 @@ public class TestApp {
         get("/getPerson/{id}", _ -> new Person("Alice", 30));
         get("/getPathVariables/{id}/{name}", Request::getPathVariables);
         get("/getQueryParameters", Request::getQueryParams);
+        get("/getQueryParameters/tags", request -> request.getParams("tag"));
 
         post("/addPerson", request -> {
             Person person = request.getBodyAs(Person.class);
             return "Received Person: " + person;
         });
 
+        post("/importPeople", request -> {
+            try (Stream<Person> people = request.getBodyAsStream(Person.class)) {
+                return "Imported: " + people.map(Person::getName).toList();
+            }
+        });
+
         post("/uploadFile", request -> "Files Received : " + request.getUploadedFiles().size());
         post("/sendForm", request -> "Form data received: " + request.getFormFields());
+        post("/streamUpload", request -> {
+            Map<String, Long> sizes = new LinkedHashMap<>();
+            request.streamParts(1024, -1, part ->
+                    sizes.put(part.getFieldName(), part.getInputStream().transferTo(OutputStream.nullOutputStream())));
+            return sizes;
+        });
 
         put("/updatePerson", request -> {
             Person person = request.getBodyAs(Person.class);
@@ -63,6 +93,18 @@ public class TestApp {
         delete("/deletePerson", _ -> "Person deleted");
 
         get("/getFile/info.zip", _ -> resolvePath("/info.zip"));
+        get("/files/sample.txt", _ -> sampleFile());
+
+        get("/routes/{id}", request -> "param:" + request.getPathVariable("param0"));
+        get("/routes/latest", _ -> "static");
+
+        getAsync("/async/person", _ -> CompletableFuture.supplyAsync(() -> new Person("Async", 7),
+                CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+        getAsync("/async/slow", Duration.ofMillis(100), _ -> new CompletableFuture<>());
+
+        get("/people/bulk", _ -> IntStream.range(0, 20_000).mapToObj(i -> new Person("p" + i, i)).toList());
+        get("/people", _ -> "listed people");
+        post("/people", _ -> "created person");
 
         get("/session/count", request -> {
             HttpExchange ex = request.getExchange();
@@ -80,6 +122,32 @@ public class TestApp {
             return "ok";
         });
 
+        // fail once the body has outgrown the response buffer and its headers are out
+        get("/people/broken", _ -> brokenPeople());
+        getAsync("/async/broken", _ -> CompletableFuture.supplyAsync(TestApp::brokenPeople));
+        get("/stream/broken", _ -> (StreamingResponse) out -> {
+            out.write("partial\n".getBytes());
+            out.flush();
+            throw new IllegalStateException("stream failed");
+        });
+
+        get("/events", _ -> (SseResponse) out -> {
+            eventStreams.incrementAndGet();
+            for (int i = 0; ; i++) {
+                out.write(("data: " + i + "\n\n").getBytes());
+                out.flush();
+                Thread.sleep(50);
+            }
+        });
+
+        get("/stream/session", request -> (StreamingResponse) out -> {
+            out.write("x".repeat(4096).getBytes());
+            out.flush();
+            Session session = sessions.current(request.getExchange());
+            session.put("late", true);
+            lateSessionId = session.id();
+        });
+
         get("/stream", _ -> (StreamingResponse) out -> {
             for (int i = 0; i < 3; i++) {
                 out.write(("chunk-" + i + "\n").getBytes());
@@ -89,6 +157,30 @@ public class TestApp {
         });
     }
 
+    static final AtomicInteger eventStreams = new AtomicInteger();
+    static volatile String lateSessionId;
+
+    private static Path sampleFile;
+
+    static synchronized Path sampleFile() {
+        if (sampleFile == null) {
+            try {
+                sampleFile = Files.createTempFile("racore-sample", ".txt");
+                Files.writeString(sampleFile, "0123456789abcdefghijklmnopqrstuvwxyz");
+                sampleFile.toFile().deleteOnExit();
+
+                Path gzipped = sampleFile.resolveSibling(sampleFile.getFileName() + ".gz");
+                try (var out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+                    out.write(Files.readAllBytes(sampleFile));
+                }
+                gzipped.toFile().deleteOnExit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return sampleFile;
+    }
+
     private static void registerInterceptors() {
         addInterceptor(new SessionInterceptor(sessions));
         addInterceptor(new LoggingInterceptor());
@@ -117,6 +209,21 @@ public class TestApp {
         }
     }
 
+    private static List<BrokenPerson> brokenPeople() {
+        return IntStream.range(0, 20_000).mapToObj(BrokenPerson::new).toList();
+    }
+
+    public static class BrokenPerson {
+        private final int index;
+
+        BrokenPerson(int index) { this.index = index; }
+
+        public int getIndex() {
+            if (index == 19_999) throw new IllegalStateException("getter failed");
+            return index;
+        }
+    }
+
     public static class LoggingInterceptor implements Interceptor {
 
         @Override